@@ -1,15 +1,19 @@
 package com.binpacker.app;
 
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.common.Point3f;
 import com.binpacker.lib.common.Utils;
 import com.binpacker.lib.optimizer.GAOptimizer;
 import com.binpacker.lib.optimizer.Optimizer;
 import com.binpacker.lib.solver.BestFit3D;
+import com.binpacker.lib.solver.ExtremePoint3D;
 import com.binpacker.lib.solver.FirstFit2D;
 import com.binpacker.lib.solver.FirstFit3D;
 import com.binpacker.lib.solver.MOAB;
+import com.binpacker.lib.solver.MaxRects2D;
 import com.binpacker.lib.solver.Solver;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -29,7 +33,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.shape.Box;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
-import javafx.scene.shape.DrawMode;
 import javafx.scene.transform.Rotate;
 import javafx.stage.Stage;
 
@@ -40,6 +43,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 class NumberTextField extends TextField {
 
@@ -91,7 +95,15 @@ public class GuiApp extends Application {
 	private final Rotate rotateX = new Rotate(0, Rotate.X_AXIS);
 	private final Rotate rotateY = new Rotate(0, Rotate.Y_AXIS);
 
-	private List<List<com.binpacker.lib.common.Box>> result;
+	private PackingResult result;
+
+	// Solver progress is handed to the FX thread through a single slot that
+	// the frame timer drains, so a fast solver cannot flood the event queue
+	private static final int MAX_FPS = 30;
+	private final AtomicReference<Frame> pendingFrame = new AtomicReference<>();
+	private AnimationTimer frameTimer;
+	private Task<Void> solverTask;
+	private Group solverOutputGroup;
 
 	private ComboBox<Solver> solverComboBox;
 
@@ -147,6 +159,10 @@ public class GuiApp extends Application {
 					return "Best Fit 3D";
 				} else if (solver instanceof MOAB) {
 					return "MOAB";
+				} else if (solver instanceof ExtremePoint3D) {
+					return "Extreme Point 3D";
+				} else if (solver instanceof MaxRects2D) {
+					return "MaxRects 2D";
 				}
 				return solver.getClass().getSimpleName(); // Fallback
 			}
@@ -157,7 +173,8 @@ public class GuiApp extends Application {
 				return null;
 			}
 		});
-		this.solverComboBox.getItems().addAll(new FirstFit3D(), new FirstFit2D(), new BestFit3D(), new MOAB());
+		this.solverComboBox.getItems().addAll(new FirstFit3D(), new FirstFit2D(), new BestFit3D(), new MOAB(),
+				new ExtremePoint3D(), new MaxRects2D());
 		this.solverComboBox.setValue(this.solverComboBox.getItems().get(0)); // Set default to the first item
 
 		Button solveButton = new Button("Solve");
@@ -351,70 +368,89 @@ public class GuiApp extends Application {
 
 		int generations = this.generations;
 
-		Task<Void> solverTask = new Task<Void>() {
+		PackingMeshBuilder meshBuilder = new PackingMeshBuilder(boxColors);
+
+		// A new run replaces the previous one and its output
+		if (solverTask != null) {
+			solverTask.cancel();
+		}
+		if (solverOutputGroup != null) {
+			world.getChildren().remove(solverOutputGroup);
+		}
+		final Group outputGroup = new Group();
+		solverOutputGroup = outputGroup;
+		world.getChildren().add(outputGroup);
+		pendingFrame.set(null);
+		startFrameTimer();
+
+		solverTask = new Task<Void>() {
 			@Override
 			protected Void call() throws Exception {
-				final Group solverOutputGroup = new Group();
-				Platform.runLater(() -> {
-					world.getChildren().add(solverOutputGroup);
-				});
-
-				for (int i = 0; i < generations; i++) {
-					result = optimizer.executeNextGeneration();
-					final double rawRate = optimizer.rate(result, bin) * 100;
+				Group meshes = null;
+
+				for (int i = 0; i < generations && !isCancelled(); i++) {
+					PackingResult best = optimizer.executeNextGeneration();
+					final double rawRate = optimizer.rate(best, bin) * 100;
 					final String rate = String.format("%.2f", rawRate);
 					final int generation = i + 1;
 
-					Platform.runLater(() -> {
-						statusLabel
-								.setText("Solving... Generation " + generation + " complete, " + rate + "% full");
-
-						solverOutputGroup.getChildren().clear(); // Clear previous generation's visualization
-
-						int binOffset = -50;
-						for (List<com.binpacker.lib.common.Box> binBoxes : result) {
-							for (com.binpacker.lib.common.Box spec : binBoxes) {
-								Color boxColor = boxColors.get(spec.id % boxColors.size());
-								PhongMaterial boxMaterial = new PhongMaterial(boxColor);
-								Box box = new Box(spec.size.x, spec.size.y, spec.size.z);
-								box.setMaterial(boxMaterial);
-
-								// JavaFX Box is centered at (0,0,0), so we need to offset by half size
-								box.setTranslateX(spec.position.x + spec.size.x / 2 + binOffset);
-								box.setTranslateY(spec.position.y + spec.size.y / 2);
-								box.setTranslateZ(spec.position.z + spec.size.z / 2);
-
-								solverOutputGroup.getChildren().add(box);
-							}
-
-							// Draw bin outline
-							Box binBox = new Box(bin.w, bin.h, bin.d);
-							binBox.setDrawMode(DrawMode.LINE);
-							binBox.setMaterial(new PhongMaterial(Color.BLACK));
-							binBox.setTranslateX(bin.w / 2 + binOffset);
-							binBox.setTranslateY(bin.h / 2);
-							binBox.setTranslateZ(bin.d / 2);
-							solverOutputGroup.getChildren().add(binBox);
-
-							binOffset += 40; // Space out bins
-						}
-					});
+					// meshes are built here and only when the best solution
+					// changed, the FX thread only swaps them in
+					if (meshBuilder.changed(best)) {
+						meshes = meshBuilder.build(best, bin);
+					}
 
+					// latest frame wins, frames the UI did not get to are dropped
+					pendingFrame.set(new Frame(outputGroup, meshes, best,
+							"Solving... Generation " + generation + " complete, " + rate + "% full"));
 				}
+				optimizer.cancelPending();
 
 				return null;
 			}
 		};
-		new Thread(solverTask).start();
+		Thread solverThread = new Thread(solverTask);
+		solverThread.setDaemon(true);
+		solverThread.start();
+	}
+
+	// Shows the newest pending frame at most MAX_FPS times a second
+	private void startFrameTimer() {
+		if (frameTimer != null) {
+			return;
+		}
+		frameTimer = new AnimationTimer() {
+			private long lastFrame = 0;
+
+			@Override
+			public void handle(long now) {
+				if (now - lastFrame < 1_000_000_000L / MAX_FPS) {
+					return;
+				}
+				Frame frame = pendingFrame.getAndSet(null);
+				if (frame == null || frame.target != solverOutputGroup) {
+					return; // nothing new, or left over from a cancelled run
+				}
+				lastFrame = now;
+
+				statusLabel.setText(frame.status);
+				result = frame.result;
+				if (frame.meshes != null && (frame.target.getChildren().size() != 1
+						|| frame.target.getChildren().get(0) != frame.meshes)) {
+					frame.target.getChildren().setAll(frame.meshes);
+				}
+			}
+		};
+		frameTimer.start();
 	}
 
 	private void exportSolution() {
-		if (result == null || result.isEmpty()) {
+		if (result == null || result.binCount == 0) {
 			statusLabel.setText("No solution to export – run the solver first.");
 			return;
 		}
 
-		String csv = Utils.exportCsv(result);
+		String csv = Utils.exportCsv(result.toBins());
 
 		FileChooser chooser = new FileChooser();
 		chooser.setTitle("Save Solution CSV");
@@ -450,4 +486,19 @@ public class GuiApp extends Application {
 		}
 		return boxes;
 	}
+
+	// One UI update produced by the solver task
+	private static class Frame {
+		final Group target;
+		final Group meshes;
+		final PackingResult result;
+		final String status;
+
+		Frame(Group target, Group meshes, PackingResult result, String status) {
+			this.target = target;
+			this.meshes = meshes;
+			this.result = result;
+			this.status = status;
+		}
+	}
 }
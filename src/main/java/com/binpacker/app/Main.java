@@ -1,9 +1,21 @@
 package com.binpacker.app;
 
+import java.io.IOException;
+
+import com.binpacker.lib.service.PackingServer;
+
 import javafx.application.Application;
 
 public class Main {
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		// --serve [port] runs the packing service instead of the GUI
+		if (args.length > 0 && args[0].equals("--serve")) {
+			int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+			PackingServer server = new PackingServer(port);
+			server.start();
+			System.out.println("Packing service listening on 127.0.0.1:" + server.getPort());
+			return;
+		}
 		Application.launch(GuiApp.class, args);
 	}
 }
@@ -0,0 +1,159 @@
+package com.binpacker.app;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.PackingResult;
+
+import javafx.scene.Group;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Box;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the scene graph for a packing result with one MeshView per bin
+ * instead of one Box node and material per placed box.
+ *
+ * Box colors live in a one pixel high palette texture shared by a single
+ * material, every box picks its color through the texture coordinate of its
+ * faces. Nothing built here is attached to a scene, so build can run off the
+ * FX thread and only the finished group is handed over.
+ */
+class PackingMeshBuilder {
+
+	private static final float BIN_SPACING = 40;
+	private static final float FIRST_BIN_OFFSET = -50;
+
+	// large palettes exceed the texture size limit of some GPUs, colors
+	// repeat beyond this
+	private static final int MAX_COLORS = 1024;
+
+	// corners of a box are numbered with bit 0 for x, bit 1 for y and bit 2
+	// for z, two triangles per side, wound so the front faces outward
+	private static final int[] TRIANGLES = {
+			0, 3, 1, 0, 2, 3, // z = 0
+			4, 5, 7, 4, 7, 6, // z = d
+			0, 4, 6, 0, 6, 2, // x = 0
+			1, 7, 5, 1, 3, 7, // x = w
+			0, 1, 5, 0, 5, 4, // y = 0
+			2, 7, 3, 2, 6, 7 // y = h
+	};
+
+	private final int colorCount;
+	private final PhongMaterial boxMaterial;
+	private final PhongMaterial outlineMaterial = new PhongMaterial(Color.BLACK);
+
+	private int[] lastIds = new int[0];
+	private int[] lastBins = new int[0];
+	private float[] lastPositions = new float[0];
+
+	PackingMeshBuilder(List<Color> colors) {
+		colorCount = Math.max(1, Math.min(MAX_COLORS, colors.size()));
+		WritableImage palette = new WritableImage(colorCount, 1);
+		PixelWriter writer = palette.getPixelWriter();
+		for (int i = 0; i < colorCount && i < colors.size(); i++) {
+			writer.setColor(i, 0, colors.get(i));
+		}
+		boxMaterial = new PhongMaterial(Color.WHITE);
+		boxMaterial.setDiffuseMap(palette);
+	}
+
+	/**
+	 * True when the result places different boxes, or the same boxes at
+	 * different positions, than the result passed to the last call.
+	 */
+	boolean changed(PackingResult result) {
+		int n = result.size;
+		float[] positions = new float[n * 3];
+		for (int i = 0; i < n; i++) {
+			positions[i * 3] = result.x[i];
+			positions[i * 3 + 1] = result.y[i];
+			positions[i * 3 + 2] = result.z[i];
+		}
+		int[] ids = Arrays.copyOf(result.ids, n);
+		int[] bins = Arrays.copyOf(result.bins, n);
+		if (Arrays.equals(ids, lastIds) && Arrays.equals(bins, lastBins) && Arrays.equals(positions, lastPositions)) {
+			return false;
+		}
+		lastIds = ids;
+		lastBins = bins;
+		lastPositions = positions;
+		return true;
+	}
+
+	Group build(PackingResult result, Bin bin) {
+		Group group = new Group();
+
+		int[] counts = new int[result.binCount];
+		for (int i = 0; i < result.size; i++) {
+			counts[result.bins[i]]++;
+		}
+
+		float[][] points = new float[result.binCount][];
+		int[][] faces = new int[result.binCount][];
+		int[] filled = new int[result.binCount];
+		for (int b = 0; b < result.binCount; b++) {
+			points[b] = new float[counts[b] * 8 * 3];
+			faces[b] = new int[counts[b] * TRIANGLES.length * 2];
+		}
+
+		for (int i = 0; i < result.size; i++) {
+			int b = result.bins[i];
+			int box = filled[b]++;
+			float[] p = points[b];
+			int base = box * 8 * 3;
+			for (int corner = 0; corner < 8; corner++) {
+				p[base + corner * 3] = result.x[i] + ((corner & 1) != 0 ? result.w[i] : 0);
+				p[base + corner * 3 + 1] = result.y[i] + ((corner & 2) != 0 ? result.h[i] : 0);
+				p[base + corner * 3 + 2] = result.z[i] + ((corner & 4) != 0 ? result.d[i] : 0);
+			}
+
+			int color = result.ids[i] % colorCount;
+			int[] f = faces[b];
+			int faceBase = box * TRIANGLES.length * 2;
+			for (int t = 0; t < TRIANGLES.length; t++) {
+				f[faceBase + t * 2] = box * 8 + TRIANGLES[t];
+				f[faceBase + t * 2 + 1] = color;
+			}
+		}
+
+		// texture coordinates at the center of every palette pixel
+		float[] texCoords = new float[colorCount * 2];
+		for (int c = 0; c < colorCount; c++) {
+			texCoords[c * 2] = (c + 0.5f) / colorCount;
+			texCoords[c * 2 + 1] = 0.5f;
+		}
+
+		float binOffset = FIRST_BIN_OFFSET;
+		for (int b = 0; b < result.binCount; b++) {
+			TriangleMesh mesh = new TriangleMesh();
+			mesh.getPoints().setAll(points[b]);
+			mesh.getTexCoords().setAll(texCoords);
+			mesh.getFaces().setAll(faces[b]);
+
+			MeshView view = new MeshView(mesh);
+			view.setMaterial(boxMaterial);
+			view.setTranslateX(binOffset);
+			group.getChildren().add(view);
+
+			// Draw bin outline
+			Box binBox = new Box(bin.w, bin.h, bin.d);
+			binBox.setDrawMode(DrawMode.LINE);
+			binBox.setMaterial(outlineMaterial);
+			binBox.setTranslateX(bin.w / 2 + binOffset);
+			binBox.setTranslateY(bin.h / 2);
+			binBox.setTranslateZ(bin.d / 2);
+			group.getChildren().add(binBox);
+
+			binOffset += BIN_SPACING; // Space out bins
+		}
+
+		return group;
+	}
+}
@@ -8,6 +8,7 @@ public class Bin {
 	public List<Space> freeSpaces = new ArrayList<>();
 	public int index;
 	public int utilCounter = 0;
+	public double usedVolume = 0;
 	public float w;
 	public float h;
 	public float d;
@@ -0,0 +1,247 @@
+package com.binpacker.lib.common;
+
+import java.util.Arrays;
+
+/**
+ * Tournament tree over the open bins of a solve, used to find the first bin
+ * that might take a box without walking the free space lists of every bin.
+ *
+ * Each leaf summarizes one bin: the largest, middle and smallest dimension of
+ * any of its free spaces (each taken separately, after sorting the dimensions
+ * of every space) and its remaining volume. Inner nodes hold the maximum of
+ * their children. A box can only fit in a space if its sorted dimensions are
+ * all within the sorted dimensions of the space, so a bin whose summary
+ * rejects the box has no space that can take it and is skipped. The summary
+ * is only a necessary condition, so callers still scan the returned bin and
+ * continue from the next index if nothing fits.
+ */
+public class BinCapacityTree {
+	private int leaves = 1;
+	private int count = 0;
+	private float[] large = new float[2];
+	private float[] middle = new float[2];
+	private float[] small = new float[2];
+	private double[] volume = new double[2];
+	// bins admitted by the last allFits
+	private int[] found = new int[16];
+
+	public BinCapacityTree() {
+		Arrays.fill(volume, -1);
+	}
+
+	public int size() {
+		return count;
+	}
+
+	// Drops every bin, keeping the arrays for the next solve
+	public void clear() {
+		count = 0;
+		Arrays.fill(large, 0);
+		Arrays.fill(middle, 0);
+		Arrays.fill(small, 0);
+		Arrays.fill(volume, -1);
+	}
+
+	// Adds a leaf for the given bin, bins must be added in index order
+	public void addBin(Bin bin) {
+		if (count == leaves) {
+			growLeaves();
+		}
+		count++;
+		update(bin);
+	}
+
+	// Adds an empty leaf for a bin summarized with update(int, ...)
+	public void add() {
+		if (count == leaves) {
+			growLeaves();
+		}
+		count++;
+	}
+
+	// Drops the leaf of the most recently added bin
+	public void removeLast() {
+		count--;
+		int node = leaves + count;
+		large[node] = 0;
+		middle[node] = 0;
+		small[node] = 0;
+		volume[node] = -1;
+		node >>= 1;
+		while (node >= 1 && pull(node)) {
+			node >>= 1;
+		}
+	}
+
+	/**
+	 * Recomputes the summary of a bin after its free spaces or used volume
+	 * changed.
+	 */
+	public void update(Bin bin) {
+		float l = 0, m = 0, s = 0;
+		for (Space space : bin.freeSpaces) {
+			float a = space.w, b = space.h, c = space.d;
+			float t;
+			if (a < b) {
+				t = a;
+				a = b;
+				b = t;
+			}
+			if (b < c) {
+				t = b;
+				b = c;
+				c = t;
+			}
+			if (a < b) {
+				t = a;
+				a = b;
+				b = t;
+			}
+			l = Math.max(l, a);
+			m = Math.max(m, b);
+			s = Math.max(s, c);
+		}
+
+		update(bin.index, l, m, s, (double) bin.w * bin.h * bin.d - bin.usedVolume);
+	}
+
+	/**
+	 * Sets the summary of a bin that keeps its free area in another form.
+	 * Flat bins pass a smallest dimension of 1 and their free area as volume,
+	 * and are searched with boxes of depth 1.
+	 */
+	public void update(int bin, float large, float middle, float small, double volume) {
+		int node = leaves + bin;
+		this.large[node] = large;
+		this.middle[node] = middle;
+		this.small[node] = small;
+		this.volume[node] = volume;
+		// nodes above one that did not change keep their summary too
+		node >>= 1;
+		while (node >= 1 && pull(node)) {
+			node >>= 1;
+		}
+	}
+
+	/**
+	 * Index of the first bin at or after {@code from} whose summary admits a
+	 * box, or -1 when no such bin exists.
+	 */
+	public int firstFit(int from, Box box) {
+		float a = box.size.x, b = box.size.y, c = box.size.z;
+		float t;
+		if (a < b) {
+			t = a;
+			a = b;
+			b = t;
+		}
+		if (b < c) {
+			t = b;
+			b = c;
+			c = t;
+		}
+		if (a < b) {
+			t = a;
+			a = b;
+			b = t;
+		}
+		return firstFit(from, a, b, c);
+	}
+
+	// Same as above for box dimensions already sorted from largest to smallest
+	public int firstFit(int from, float a, float b, float c) {
+		// small slack so float rounding in the volume bookkeeping never rejects
+		// an exact fit
+		double boxVolume = (double) a * b * c * (1 - 1e-9);
+		if (from >= count) {
+			return -1;
+		}
+		return firstFit(1, 0, leaves, from, a, b, c, boxVolume);
+	}
+
+	/**
+	 * Stores the index of every bin whose summary admits a box with the
+	 * sorted dimensions in found, in index order, and returns their count.
+	 * One pass over the tree, cheaper than repeated firstFit calls when many
+	 * bins are admitted.
+	 */
+	public int allFits(float a, float b, float c) {
+		double boxVolume = (double) a * b * c * (1 - 1e-9);
+		return allFits(1, 0, leaves, a, b, c, boxVolume, 0);
+	}
+
+	// Bin at position k of the last allFits
+	public int found(int k) {
+		return found[k];
+	}
+
+	private int allFits(int node, int lo, int hi, float a, float b, float c, double boxVolume, int count) {
+		if (large[node] < a || middle[node] < b || small[node] < c || volume[node] < boxVolume) {
+			return count;
+		}
+		if (node >= leaves) {
+			if (lo < this.count) {
+				if (count == found.length) {
+					found = Arrays.copyOf(found, count * 2);
+				}
+				found[count++] = lo;
+			}
+			return count;
+		}
+		int mid = (lo + hi) >>> 1;
+		count = allFits(node * 2, lo, mid, a, b, c, boxVolume, count);
+		return allFits(node * 2 + 1, mid, hi, a, b, c, boxVolume, count);
+	}
+
+	private int firstFit(int node, int lo, int hi, int from, float a, float b, float c, double boxVolume) {
+		if (hi <= from || large[node] < a || middle[node] < b || small[node] < c || volume[node] < boxVolume) {
+			return -1;
+		}
+		if (node >= leaves) {
+			return lo < count ? lo : -1;
+		}
+		int mid = (lo + hi) >>> 1;
+		int found = firstFit(node * 2, lo, mid, from, a, b, c, boxVolume);
+		if (found >= 0) {
+			return found;
+		}
+		return firstFit(node * 2 + 1, mid, hi, from, a, b, c, boxVolume);
+	}
+
+	// Recomputes a node from its children, returns whether it changed
+	private boolean pull(int node) {
+		float l = Math.max(large[node * 2], large[node * 2 + 1]);
+		float m = Math.max(middle[node * 2], middle[node * 2 + 1]);
+		float s = Math.max(small[node * 2], small[node * 2 + 1]);
+		double v = Math.max(volume[node * 2], volume[node * 2 + 1]);
+		if (l == large[node] && m == middle[node] && s == small[node] && v == volume[node]) {
+			return false;
+		}
+		large[node] = l;
+		middle[node] = m;
+		small[node] = s;
+		volume[node] = v;
+		return true;
+	}
+
+	private void growLeaves() {
+		int oldLeaves = leaves;
+		leaves *= 2;
+		float[] newLarge = new float[leaves * 2];
+		float[] newMiddle = new float[leaves * 2];
+		float[] newSmall = new float[leaves * 2];
+		double[] newVolume = new double[leaves * 2];
+		Arrays.fill(newVolume, -1);
+		System.arraycopy(large, oldLeaves, newLarge, leaves, oldLeaves);
+		System.arraycopy(middle, oldLeaves, newMiddle, leaves, oldLeaves);
+		System.arraycopy(small, oldLeaves, newSmall, leaves, oldLeaves);
+		System.arraycopy(volume, oldLeaves, newVolume, leaves, oldLeaves);
+		large = newLarge;
+		middle = newMiddle;
+		small = newSmall;
+		volume = newVolume;
+		for (int node = leaves - 1; node >= 1; node--) {
+			pull(node);
+		}
+	}
+}
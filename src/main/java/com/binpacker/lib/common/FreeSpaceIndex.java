@@ -0,0 +1,209 @@
+package com.binpacker.lib.common;
+
+import java.util.Arrays;
+
+/**
+ * Edge index over free spaces of one or more bins, used to find a space that
+ * shares a whole face with another one without scanning the free lists.
+ *
+ * Spaces are hashed by their bin and by four corners: the minimum corner and
+ * the corners where they end along x, y and z. Two spaces can be merged
+ * along x when the end corner of one is the minimum corner of the other and
+ * their heights and depths match, likewise for y and z. The free spaces of a
+ * guillotine solver are disjoint, so no two spaces of a bin share a corner of
+ * the same kind. Flat spaces (depth 0) are not indexed along z.
+ */
+public class FreeSpaceIndex {
+	private static final int MIN = 0;
+	private static final int END_X = 1;
+	private static final int END_Y = 2;
+	private static final int END_Z = 3;
+
+	private final Table[] tables = { new Table(MIN), new Table(END_X), new Table(END_Y), new Table(END_Z) };
+
+	// Drops every space, keeping the tables for the next use
+	public void clear() {
+		for (Table table : tables) {
+			table.clear();
+		}
+	}
+
+	public void add(int bin, Space space) {
+		for (Table table : tables) {
+			if (table.kind != END_Z || space.d > 0) {
+				table.put(bin, space);
+			}
+		}
+	}
+
+	public void remove(int bin, Space space) {
+		for (Table table : tables) {
+			if (table.kind != END_Z || space.d > 0) {
+				table.remove(bin, space);
+			}
+		}
+	}
+
+	/**
+	 * A space of the bin that shares a whole face with the given one, so both
+	 * together form a single box, or null. The given space itself need not be
+	 * indexed.
+	 */
+	public Space neighbor(int bin, Space space) {
+		Table min = tables[MIN];
+		// along x: ending where the space starts, or starting where it ends
+		Space other = tables[END_X].get(bin, space.x, space.y, space.z);
+		if (other != null && other.h == space.h && other.d == space.d) {
+			return other;
+		}
+		other = min.get(bin, space.x + space.w, space.y, space.z);
+		if (other != null && other.h == space.h && other.d == space.d) {
+			return other;
+		}
+
+		other = tables[END_Y].get(bin, space.x, space.y, space.z);
+		if (other != null && other.w == space.w && other.d == space.d) {
+			return other;
+		}
+		other = min.get(bin, space.x, space.y + space.h, space.z);
+		if (other != null && other.w == space.w && other.d == space.d) {
+			return other;
+		}
+
+		if (space.d > 0) {
+			other = tables[END_Z].get(bin, space.x, space.y, space.z);
+			if (other != null && other.w == space.w && other.h == space.h) {
+				return other;
+			}
+			other = min.get(bin, space.x, space.y, space.z + space.d);
+			if (other != null && other.w == space.w && other.h == space.h) {
+				return other;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Open addressing table from (bin, corner) to the space with that corner,
+	 * with linear probing and backward shift deletion.
+	 */
+	private static final class Table {
+		final int kind;
+		private Space[] spaces = new Space[64];
+		private int[] bins = new int[64];
+		private int size = 0;
+
+		Table(int kind) {
+			this.kind = kind;
+		}
+
+		void clear() {
+			if (size > 0) {
+				Arrays.fill(spaces, null);
+				size = 0;
+			}
+		}
+
+		Space get(int bin, float x, float y, float z) {
+			int mask = spaces.length - 1;
+			for (int slot = hash(bin, x, y, z) & mask; spaces[slot] != null; slot = (slot + 1) & mask) {
+				if (bins[slot] == bin && matches(spaces[slot], x, y, z)) {
+					return spaces[slot];
+				}
+			}
+			return null;
+		}
+
+		void put(int bin, Space space) {
+			if (2 * (size + 1) > spaces.length) {
+				grow();
+			}
+			insert(bin, space);
+			size++;
+		}
+
+		void remove(int bin, Space space) {
+			int mask = spaces.length - 1;
+			int slot = hash(bin, space) & mask;
+			while (spaces[slot] != space) {
+				if (spaces[slot] == null) {
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			size--;
+			// move later entries of the probe run into the gap
+			int gap = slot;
+			for (slot = (slot + 1) & mask; spaces[slot] != null; slot = (slot + 1) & mask) {
+				int home = hash(bins[slot], spaces[slot]) & mask;
+				if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+					spaces[gap] = spaces[slot];
+					bins[gap] = bins[slot];
+					gap = slot;
+				}
+			}
+			spaces[gap] = null;
+		}
+
+		private void insert(int bin, Space space) {
+			int mask = spaces.length - 1;
+			int slot = hash(bin, space) & mask;
+			while (spaces[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			spaces[slot] = space;
+			bins[slot] = bin;
+		}
+
+		private void grow() {
+			Space[] oldSpaces = spaces;
+			int[] oldBins = bins;
+			spaces = new Space[oldSpaces.length * 2];
+			bins = new int[oldSpaces.length * 2];
+			for (int i = 0; i < oldSpaces.length; i++) {
+				if (oldSpaces[i] != null) {
+					insert(oldBins[i], oldSpaces[i]);
+				}
+			}
+		}
+
+		private boolean matches(Space space, float x, float y, float z) {
+			return cornerX(space) == x && cornerY(space) == y && cornerZ(space) == z;
+		}
+
+		private int hash(int bin, Space space) {
+			return hash(bin, cornerX(space), cornerY(space), cornerZ(space));
+		}
+
+		private float cornerX(Space space) {
+			return kind == END_X ? space.x + space.w : space.x;
+		}
+
+		private float cornerY(Space space) {
+			return kind == END_Y ? space.y + space.h : space.y;
+		}
+
+		private float cornerZ(Space space) {
+			return kind == END_Z ? space.z + space.d : space.z;
+		}
+
+		private static int hash(int bin, float x, float y, float z) {
+			// adding 0 turns -0 into 0, which compares equal but hashes differently
+			int h = bin * 0x9e3779b9;
+			h = mix(h, Float.floatToIntBits(x + 0.0f));
+			h = mix(h, Float.floatToIntBits(y + 0.0f));
+			h = mix(h, Float.floatToIntBits(z + 0.0f));
+			h ^= h >>> 16;
+			h *= 0x85ebca6b;
+			h ^= h >>> 13;
+			h *= 0xc2b2ae35;
+			return h ^ (h >>> 16);
+		}
+
+		// whole numbers have no low mantissa bits, the rotation brings the
+		// high ones down before the multiply spreads them up again
+		private static int mix(int h, int bits) {
+			return Integer.rotateLeft(h ^ bits, 15) * 0x9e3779b9;
+		}
+	}
+}
@@ -0,0 +1,218 @@
+package com.binpacker.lib.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable description of a packing problem, built once and shared by every
+ * solve of a run.
+ *
+ * Holds the bin dimensions, the grow axis and per-box data in primitive
+ * arrays indexed like the box list it was built from: ids, sizes, volumes and
+ * the sizes sorted from largest to smallest. Solvers read the problem and
+ * never write to it, so any number of threads can pack orders of the same
+ * problem at once without copying the bin or the boxes.
+ */
+public final class PackingProblem {
+
+	public enum GrowAxis {
+		X, Y, Z;
+
+		// Axis name as used by PackingResult.maxExtent
+		public String key() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private final float binW;
+	private final float binH;
+	private final float binD;
+	private final GrowAxis growAxis; // null for fixed bins
+
+	private final int[] ids;
+	private final float[] sizeX;
+	private final float[] sizeY;
+	private final float[] sizeZ;
+	private final double[] volume;
+	private final float[] large;
+	private final float[] middle;
+	private final float[] small;
+	private final List<Box> boxes;
+
+	private PackingProblem(List<Box> boxes, Bin bin, GrowAxis growAxis) {
+		this.binW = bin.w;
+		this.binH = bin.h;
+		this.binD = bin.d;
+		this.growAxis = growAxis;
+
+		int n = boxes.size();
+		this.ids = new int[n];
+		this.sizeX = new float[n];
+		this.sizeY = new float[n];
+		this.sizeZ = new float[n];
+		this.volume = new double[n];
+		this.large = new float[n];
+		this.middle = new float[n];
+		this.small = new float[n];
+		for (int i = 0; i < n; i++) {
+			Box box = boxes.get(i);
+			float a = box.size.x, b = box.size.y, c = box.size.z;
+			ids[i] = box.id;
+			sizeX[i] = a;
+			sizeY[i] = b;
+			sizeZ[i] = c;
+			volume[i] = box.getVolume();
+
+			float t;
+			if (a < b) {
+				t = a;
+				a = b;
+				b = t;
+			}
+			if (b < c) {
+				t = b;
+				b = c;
+				c = t;
+			}
+			if (a < b) {
+				t = a;
+				a = b;
+				b = t;
+			}
+			large[i] = a;
+			middle[i] = b;
+			small[i] = c;
+		}
+		// only used to describe boxes in messages
+		this.boxes = Collections.unmodifiableList(new ArrayList<>(boxes));
+	}
+
+	// Same boxes in another, fixed bin, sharing the box data
+	private PackingProblem(PackingProblem boxes, float binW, float binH, float binD) {
+		this.binW = binW;
+		this.binH = binH;
+		this.binD = binD;
+		this.growAxis = null;
+		this.ids = boxes.ids;
+		this.sizeX = boxes.sizeX;
+		this.sizeY = boxes.sizeY;
+		this.sizeZ = boxes.sizeZ;
+		this.volume = boxes.volume;
+		this.large = boxes.large;
+		this.middle = boxes.middle;
+		this.small = boxes.small;
+		this.boxes = boxes.boxes;
+	}
+
+	/**
+	 * Builds the problem for the given boxes and bin. The bin is only read.
+	 * An unknown grow axis falls back to y, like the solvers always did.
+	 */
+	public static PackingProblem of(List<Box> boxes, Bin bin, boolean growingBin, String growAxis) {
+		GrowAxis axis = null;
+		if (growingBin) {
+			switch (growAxis == null ? "" : growAxis) {
+				case "x":
+					axis = GrowAxis.X;
+					break;
+				case "y":
+					axis = GrowAxis.Y;
+					break;
+				case "z":
+					axis = GrowAxis.Z;
+					break;
+				default:
+					System.err.println("Invalid growAxis specified: " + growAxis);
+					axis = GrowAxis.Y;
+					break;
+			}
+		}
+		return new PackingProblem(boxes, bin, axis);
+	}
+
+	/**
+	 * The same boxes packed into fixed bins of the given size. The box data is
+	 * shared, not copied, so this is cheap enough to call per decode.
+	 */
+	public PackingProblem withFixedBin(float w, float h, float d) {
+		return new PackingProblem(this, w, h, d);
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	public boolean isGrowing() {
+		return growAxis != null;
+	}
+
+	// Axis the single bin grows along, null for fixed bins
+	public GrowAxis growAxis() {
+		return growAxis;
+	}
+
+	// Bin dimensions as given
+	public float binW() {
+		return binW;
+	}
+
+	public float binH() {
+		return binH;
+	}
+
+	public float binD() {
+		return binD;
+	}
+
+	// Bin dimensions to pack into, unbounded along the grow axis
+	public float packW() {
+		return growAxis == GrowAxis.X ? Integer.MAX_VALUE : binW;
+	}
+
+	public float packH() {
+		return growAxis == GrowAxis.Y ? Integer.MAX_VALUE : binH;
+	}
+
+	public float packD() {
+		return growAxis == GrowAxis.Z ? Integer.MAX_VALUE : binD;
+	}
+
+	public int id(int index) {
+		return ids[index];
+	}
+
+	public float sizeX(int index) {
+		return sizeX[index];
+	}
+
+	public float sizeY(int index) {
+		return sizeY[index];
+	}
+
+	public float sizeZ(int index) {
+		return sizeZ[index];
+	}
+
+	public double volume(int index) {
+		return volume[index];
+	}
+
+	// Box dimensions sorted from largest to smallest
+	public float large(int index) {
+		return large[index];
+	}
+
+	public float middle(int index) {
+		return middle[index];
+	}
+
+	public float small(int index) {
+		return small[index];
+	}
+
+	public Box box(int index) {
+		return boxes.get(index);
+	}
+}
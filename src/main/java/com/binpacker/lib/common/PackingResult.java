@@ -0,0 +1,167 @@
+package com.binpacker.lib.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flat placement storage written directly by the solvers.
+ *
+ * Every placement is one slot in a set of parallel primitive arrays, so a
+ * decode produces a handful of arrays instead of a Box and two Point3f objects
+ * per placed box. The List<List<Box>> view used by the GUI and
+ * Utils.exportCsv is only built when asked for.
+ */
+public class PackingResult {
+	public int size = 0;
+	public int binCount = 0;
+
+	public int[] ids;
+	public int[] bins;
+	public float[] x;
+	public float[] y;
+	public float[] z;
+	public float[] w;
+	public float[] h;
+	public float[] d;
+
+	private List<List<Box>> binsView;
+
+	public PackingResult(int capacity) {
+		capacity = Math.max(capacity, 1);
+		ids = new int[capacity];
+		bins = new int[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		z = new float[capacity];
+		w = new float[capacity];
+		h = new float[capacity];
+		d = new float[capacity];
+	}
+
+	public PackingResult() {
+		this(16);
+	}
+
+	// Copy with arrays just large enough for the placements
+	public PackingResult copy() {
+		PackingResult copy = new PackingResult(size);
+		copy.size = size;
+		copy.binCount = binCount;
+		System.arraycopy(ids, 0, copy.ids, 0, size);
+		System.arraycopy(bins, 0, copy.bins, 0, size);
+		System.arraycopy(x, 0, copy.x, 0, size);
+		System.arraycopy(y, 0, copy.y, 0, size);
+		System.arraycopy(z, 0, copy.z, 0, size);
+		System.arraycopy(w, 0, copy.w, 0, size);
+		System.arraycopy(h, 0, copy.h, 0, size);
+		System.arraycopy(d, 0, copy.d, 0, size);
+		return copy;
+	}
+
+	// Opens a new bin and returns its index
+	public int addBin() {
+		binsView = null;
+		return binCount++;
+	}
+
+	public int add(int id, int bin, float px, float py, float pz, float sw, float sh, float sd) {
+		if (size == ids.length) {
+			grow();
+		}
+		ids[size] = id;
+		bins[size] = bin;
+		x[size] = px;
+		y[size] = py;
+		z[size] = pz;
+		w[size] = sw;
+		h[size] = sh;
+		d[size] = sd;
+		binsView = null;
+		return size++;
+	}
+
+	public void clear() {
+		size = 0;
+		binCount = 0;
+		binsView = null;
+	}
+
+	// Drops every placement after the first size ones and every bin after the
+	// first binCount ones
+	public void truncate(int size, int binCount) {
+		this.size = size;
+		this.binCount = binCount;
+		binsView = null;
+	}
+
+	public double getVolume(int i) {
+		return w[i] * h[i] * d[i];
+	}
+
+	// Largest coordinate reached by any placed box along the given axis
+	public float maxExtent(String axis) {
+		float max = 0;
+		for (int i = 0; i < size; i++) {
+			switch (axis) {
+				case "x":
+					max = Math.max(max, x[i] + w[i]);
+					break;
+				case "y":
+					max = Math.max(max, y[i] + h[i]);
+					break;
+				case "z":
+					max = Math.max(max, z[i] + d[i]);
+					break;
+				default:
+					break;
+			}
+		}
+		return max;
+	}
+
+	// Largest coordinate reached by any placed box along any axis
+	public float maxExtent() {
+		float max = 0;
+		for (int i = 0; i < size; i++) {
+			max = Math.max(max, x[i] + w[i]);
+			max = Math.max(max, y[i] + h[i]);
+			max = Math.max(max, z[i] + d[i]);
+		}
+		return max;
+	}
+
+	public Box getBox(int i) {
+		return new Box(ids[i], new Point3f(x[i], y[i], z[i]), new Point3f(w[i], h[i], d[i]));
+	}
+
+	/**
+	 * Box objects grouped per bin in placement order. Built on first use and
+	 * cached until the result is modified.
+	 */
+	public List<List<Box>> toBins() {
+		if (binsView == null) {
+			List<List<Box>> view = new ArrayList<>(binCount);
+			for (int b = 0; b < binCount; b++) {
+				view.add(new ArrayList<>());
+			}
+			for (int i = 0; i < size; i++) {
+				view.get(bins[i]).add(getBox(i));
+			}
+			binsView = view;
+		}
+		return binsView;
+	}
+
+	private void grow() {
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		bins = Arrays.copyOf(bins, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		z = Arrays.copyOf(z, capacity);
+		w = Arrays.copyOf(w, capacity);
+		h = Arrays.copyOf(h, capacity);
+		d = Arrays.copyOf(d, capacity);
+	}
+}
@@ -0,0 +1,73 @@
+package com.binpacker.lib.common;
+
+import java.util.Arrays;
+
+/**
+ * Pool of Space objects for a single solve, owned by the solver workspace.
+ *
+ * A solve gets every free space from allocate() and hands spaces it drops
+ * back through recycle(). release() resets the arena, so the next solve with
+ * the same workspace reuses the same objects and a warmed up workspace packs
+ * without creating garbage spaces. Spaces from an arena must not outlive the
+ * solve that allocated them.
+ */
+public final class SpaceArena {
+
+	// Spaces kept between solves, larger arenas are trimmed
+	private static final int MAX_RETAINED = 1 << 16;
+
+	// every space created so far, the first next are handed out
+	private Space[] spaces = new Space[256];
+	private int created = 0;
+	private int next = 0;
+	// spaces handed back during the current solve
+	private Space[] free = new Space[64];
+	private int freeCount = 0;
+
+	// Makes every space of this arena available to the next solve
+	public void release() {
+		next = 0;
+		Arrays.fill(free, 0, freeCount, null);
+		freeCount = 0;
+		if (created > MAX_RETAINED) {
+			spaces = Arrays.copyOf(spaces, MAX_RETAINED);
+			created = MAX_RETAINED;
+		}
+		if (free.length > MAX_RETAINED) {
+			free = new Space[64];
+		}
+	}
+
+	public Space allocate(float x, float y, float z, float w, float h, float d) {
+		Space space;
+		if (freeCount > 0) {
+			space = free[--freeCount];
+			free[freeCount] = null;
+		} else if (next < created) {
+			space = spaces[next++];
+		} else {
+			space = new Space(x, y, z, w, h, d);
+			if (created == spaces.length) {
+				spaces = Arrays.copyOf(spaces, created * 2);
+			}
+			spaces[created++] = space;
+			next = created;
+			return space;
+		}
+		space.x = x;
+		space.y = y;
+		space.z = z;
+		space.w = w;
+		space.h = h;
+		space.d = d;
+		return space;
+	}
+
+	// Hands back a space nothing refers to anymore
+	public void recycle(Space space) {
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, freeCount * 2);
+		}
+		free[freeCount++] = space;
+	}
+}
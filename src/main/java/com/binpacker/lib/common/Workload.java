@@ -0,0 +1,103 @@
+package com.binpacker.lib.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible generated box sets for tests, benchmarks and profiling.
+ *
+ * Box sizes are whole numbers scaled to the bin, so the same shape gives
+ * comparable packings for any bin, and every box fits the bin in at least
+ * one orientation. The same shape, count, bin and seed always give the same
+ * boxes with ids 0 to count - 1.
+ */
+public final class Workload {
+
+	public enum Shape {
+		// every edge uniform between a tenth and a quarter of the bin edge
+		UNIFORM,
+		// edges log-uniform from a fiftieth to half of the bin edge
+		HETEROGENEOUS,
+		// a handful of stock sizes, a few of them far more common than others
+		FEW_SKU,
+		// plates with one thin edge and rods with one edge of most of the bin
+		FLAT_LONG
+	}
+
+	private static final int SKU_COUNT = 8;
+
+	private Workload() {
+	}
+
+	public static List<Box> boxes(Shape shape, int count, Bin bin, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		// boxes may be turned, so scale to the shortest bin edge that matters
+		float edge = bin.d > 0 ? Math.min(bin.w, Math.min(bin.h, bin.d)) : Math.min(bin.w, bin.h);
+		List<Box> boxes = new ArrayList<>(count);
+
+		float[][] skus = null;
+		if (shape == Shape.FEW_SKU) {
+			skus = new float[SKU_COUNT][];
+			for (int i = 0; i < SKU_COUNT; i++) {
+				skus[i] = new float[] { uniform(random, edge / 10, edge / 3), uniform(random, edge / 10, edge / 3),
+						uniform(random, edge / 10, edge / 3) };
+			}
+		}
+
+		for (int id = 0; id < count; id++) {
+			float x, y, z;
+			switch (shape) {
+				case UNIFORM:
+					x = uniform(random, edge / 10, edge / 4);
+					y = uniform(random, edge / 10, edge / 4);
+					z = uniform(random, edge / 10, edge / 4);
+					break;
+				case HETEROGENEOUS:
+					x = logUniform(random, edge / 50, edge / 2);
+					y = logUniform(random, edge / 50, edge / 2);
+					z = logUniform(random, edge / 50, edge / 2);
+					break;
+				case FEW_SKU: {
+					// popularity falls off roughly like 1 / rank
+					double u = random.nextDouble();
+					float[] sku = skus[Math.min(SKU_COUNT - 1, (int) (Math.pow(SKU_COUNT + 1, u) - 1))];
+					x = sku[0];
+					y = sku[1];
+					z = sku[2];
+					break;
+				}
+				default: {
+					float thin = uniform(random, edge / 50, edge / 20);
+					if (random.nextBoolean()) {
+						// plate
+						x = uniform(random, edge / 5, edge / 2);
+						y = thin;
+						z = uniform(random, edge / 5, edge / 2);
+					} else {
+						// rod
+						x = uniform(random, edge / 3, edge * 0.9f);
+						y = thin;
+						z = uniform(random, edge / 50, edge / 20);
+					}
+					break;
+				}
+			}
+			boxes.add(new Box(id, new Point3f(0, 0, 0), new Point3f(x, y, z)));
+		}
+		return boxes;
+	}
+
+	// Whole number in [lo, hi], at least 1
+	private static float uniform(SplittableRandom random, float lo, float hi) {
+		int min = Math.max(1, Math.round(lo));
+		int max = Math.max(min, Math.round(hi));
+		return min + random.nextInt(max - min + 1);
+	}
+
+	private static float logUniform(SplittableRandom random, float lo, float hi) {
+		double min = Math.log(Math.max(1, lo));
+		double max = Math.log(Math.max(1, hi));
+		return Math.max(1, Math.round((float) Math.exp(min + random.nextDouble() * (max - min))));
+	}
+}
@@ -0,0 +1,159 @@
+package com.binpacker.lib.optimizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Binary snapshot of an optimizer run.
+ *
+ * Holds everything needed to continue a run: the seed and generation counter
+ * (the random streams of a generation derive from these two alone), the
+ * population with the known scores of its carried over elites, and the best
+ * solution of the last generation. A fingerprint of the problem guards
+ * against resuming a checkpoint with different boxes or bin settings.
+ *
+ * Orders are stored with the smallest integer width that holds a box index.
+ */
+class Checkpoint {
+
+	private static final int MAGIC = 0x42504b43; // "BPKC"
+	private static final int VERSION = 1;
+
+	long fingerprint;
+	long seed;
+	int generation;
+	boolean elitesCarried;
+	int boxCount;
+	int[][] orders;
+	double[] scores; // NaN where the order was not scored yet
+	double bestScore = Double.NaN;
+	PackingResult best;
+
+	void write(Path file) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fingerprint);
+			out.writeLong(seed);
+			out.writeInt(generation);
+			out.writeBoolean(elitesCarried);
+			out.writeInt(boxCount);
+
+			out.writeInt(orders.length);
+			for (int i = 0; i < orders.length; i++) {
+				out.writeDouble(scores[i]);
+				for (int idx : orders[i]) {
+					writeIndex(out, idx);
+				}
+			}
+
+			out.writeBoolean(best != null);
+			if (best != null) {
+				out.writeDouble(bestScore);
+				out.writeInt(best.binCount);
+				out.writeInt(best.size);
+				for (int i = 0; i < best.size; i++) {
+					out.writeInt(best.ids[i]);
+					out.writeInt(best.bins[i]);
+					out.writeFloat(best.x[i]);
+					out.writeFloat(best.y[i]);
+					out.writeFloat(best.z[i]);
+					out.writeFloat(best.w[i]);
+					out.writeFloat(best.h[i]);
+					out.writeFloat(best.d[i]);
+				}
+			}
+		}
+		// readers never see a half written checkpoint
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	static Checkpoint read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a checkpoint file: " + file);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+			}
+
+			Checkpoint checkpoint = new Checkpoint();
+			checkpoint.fingerprint = in.readLong();
+			checkpoint.seed = in.readLong();
+			checkpoint.generation = in.readInt();
+			checkpoint.elitesCarried = in.readBoolean();
+			checkpoint.boxCount = in.readInt();
+
+			int population = in.readInt();
+			checkpoint.orders = new int[population][checkpoint.boxCount];
+			checkpoint.scores = new double[population];
+			for (int i = 0; i < population; i++) {
+				checkpoint.scores[i] = in.readDouble();
+				for (int j = 0; j < checkpoint.boxCount; j++) {
+					checkpoint.orders[i][j] = checkpoint.readIndex(in);
+				}
+			}
+
+			if (in.readBoolean()) {
+				checkpoint.bestScore = in.readDouble();
+				PackingResult best = new PackingResult(checkpoint.boxCount);
+				int binCount = in.readInt();
+				int size = in.readInt();
+				for (int b = 0; b < binCount; b++) {
+					best.addBin();
+				}
+				for (int i = 0; i < size; i++) {
+					int id = in.readInt();
+					int bin = in.readInt();
+					best.add(id, bin, in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+							in.readFloat());
+				}
+				checkpoint.best = best;
+			}
+			return checkpoint;
+		}
+	}
+
+	List<List<Integer>> population() {
+		List<List<Integer>> population = new ArrayList<>(orders.length);
+		for (int[] order : orders) {
+			List<Integer> list = new ArrayList<>(order.length);
+			for (int idx : order) {
+				list.add(idx);
+			}
+			population.add(list);
+		}
+		return population;
+	}
+
+	private void writeIndex(DataOutputStream out, int idx) throws IOException {
+		if (boxCount <= 1 << 8) {
+			out.writeByte(idx);
+		} else if (boxCount <= 1 << 16) {
+			out.writeShort(idx);
+		} else {
+			out.writeInt(idx);
+		}
+	}
+
+	private int readIndex(DataInputStream in) throws IOException {
+		if (boxCount <= 1 << 8) {
+			return in.readUnsignedByte();
+		} else if (boxCount <= 1 << 16) {
+			return in.readUnsignedShort();
+		}
+		return in.readInt();
+	}
+}
@@ -3,15 +3,15 @@ package com.binpacker.lib.optimizer;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Random;
+import java.util.function.ToDoubleFunction;
 
 import com.binpacker.lib.common.Bin;
-import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingResult;
 
 public class GAOptimizer extends Optimizer {
 
-	private Random random = new Random();
-
 	@Override
 	public void generateInitialPopulation() {
 		this.boxOrders = new ArrayList<>();
@@ -20,20 +20,30 @@ public class GAOptimizer extends Optimizer {
 			base.add(i);
 		}
 
-		// First order: growing by volume
-		List<Integer> growingOrder = new ArrayList<>(base);
-		Collections.sort(growingOrder,
-				(i1, i2) -> Double.compare(boxes.get(i1).getVolume(), boxes.get(i2).getVolume()));
-		boxOrders.add(growingOrder);
+		// Constructive seeds: growing and shrinking volume, then largest first
+		// by longest edge, base area (x by z) and height
+		List<List<Integer>> constructive = new ArrayList<>();
+		constructive.add(sorted(base, i -> problem.volume(i)));
+		constructive.add(sorted(base, i -> -problem.volume(i)));
+		constructive.add(sorted(base, i -> -problem.large(i)));
+		constructive.add(sorted(base, i -> -(double) problem.sizeX(i) * problem.sizeZ(i)));
+		constructive.add(sorted(base, i -> -(double) problem.sizeY(i)));
+
+		for (List<Integer> order : constructive) {
+			if (boxOrders.size() < populationSize) {
+				boxOrders.add(order);
+			}
+		}
 
-		// Second order: shrinking by volume
-		List<Integer> shrinkingOrder = new ArrayList<>(base);
-		Collections.sort(shrinkingOrder,
-				(i1, i2) -> Double.compare(boxes.get(i2).getVolume(), boxes.get(i1).getVolume()));
-		boxOrders.add(shrinkingOrder);
+		// Perturbed copies of the constructive seeds fill up to half of the
+		// population, each with a few swaps of nearby boxes
+		int perturbed = populationSize / 2;
+		for (int i = 0; boxOrders.size() < perturbed; i++) {
+			boxOrders.add(perturb(constructive.get(i % constructive.size())));
+		}
 
 		// Remaining orders: random
-		for (int i = 2; i < populationSize; i++) {
+		while (boxOrders.size() < populationSize) {
 			List<Integer> order = new ArrayList<>(base);
 			Collections.shuffle(order, random);
 			boxOrders.add(order);
@@ -41,35 +51,46 @@ public class GAOptimizer extends Optimizer {
 
 	}
 
+	private List<Integer> sorted(List<Integer> base, ToDoubleFunction<Integer> key) {
+		List<Integer> order = new ArrayList<>(base);
+		order.sort(Comparator.comparingDouble(key));
+		return order;
+	}
+
+	private List<Integer> perturb(List<Integer> seed) {
+		List<Integer> order = new ArrayList<>(seed);
+		int size = order.size();
+		if (size < 2) {
+			return order;
+		}
+		int swaps = Math.max(1, size / 20);
+		int reach = Math.max(1, Math.min(size - 1, 8));
+		for (int s = 0; s < swaps; s++) {
+			int i = random.nextInt(size);
+			int j = Math.min(size - 1, Math.max(0, i + random.nextInt(2 * reach + 1) - reach));
+			Collections.swap(order, i, j);
+		}
+		return order;
+	}
+
 	@Override
-	public double rate(List<List<Box>> solution, Bin bin) {
+	public double rate(PackingResult solution, Bin bin) {
 
 		if (growingBin) {
-			double maxExtent = 0.0;
-			for (List<Box> packedBin : solution) {
-				for (Box box : packedBin) {
-					maxExtent = Math.max(maxExtent, box.position.x + box.size.x);
-					maxExtent = Math.max(maxExtent, box.position.y + box.size.y);
-					maxExtent = Math.max(maxExtent, box.position.z + box.size.z);
-				}
-			}
-			return maxExtent;
+			return solution.maxExtent();
 
 		} else {
 			double totalUsedVolume = 0.0;
-			int binsToConsider = solution.size() - 1; // Exclude the last bin
+			int binsToConsider = solution.binCount - 1; // Exclude the last bin
 
 			if (binsToConsider <= 0) {
 				return 1.0; // No bins to consider or only one bin
 			}
 
-			for (int i = 0; i < binsToConsider; i++) {
-				List<Box> currentBinContents = solution.get(i);
-				double currentBinUsedVolume = 0.0;
-				for (Box box : currentBinContents) {
-					currentBinUsedVolume += box.getVolume();
+			for (int i = 0; i < solution.size; i++) {
+				if (solution.bins[i] < binsToConsider) {
+					totalUsedVolume += solution.getVolume(i);
 				}
-				totalUsedVolume += currentBinUsedVolume;
 			}
 
 			return totalUsedVolume / (binsToConsider * bin.getVolume());
@@ -79,12 +100,11 @@ public class GAOptimizer extends Optimizer {
 	}
 
 	@Override
-	protected List<Integer> crossOver(List<Integer> parent1, List<Integer> parent2) {
+	protected List<Integer> crossOver(List<Integer> parent1, List<Integer> parent2, Random random) {
 		int size = parent1.size();
-		Random rand = new Random();
 
-		int cut1 = rand.nextInt(size);
-		int cut2 = rand.nextInt(size);
+		int cut1 = random.nextInt(size);
+		int cut2 = random.nextInt(size);
 
 		if (cut1 > cut2) {
 			int t = cut1;
@@ -93,10 +113,13 @@ public class GAOptimizer extends Optimizer {
 		}
 
 		List<Integer> child = new ArrayList<>(Collections.nCopies(size, null));
+		// genes are box indices, marks the ones already in the child
+		boolean[] taken = new boolean[size];
 
 		// 1. Copy the slice from parent2
 		for (int i = cut1; i <= cut2; i++) {
 			child.set(i, parent2.get(i));
+			taken[parent2.get(i)] = true;
 		}
 
 		// 2. Fill remaining positions from parent1 in order
@@ -105,7 +128,8 @@ public class GAOptimizer extends Optimizer {
 		for (int i = 0; i < size; i++) {
 			int gene = parent1.get((cut2 + 1 + i) % size);
 
-			if (!child.contains(gene)) {
+			if (!taken[gene]) {
+				taken[gene] = true;
 				child.set(fillPos, gene);
 				fillPos = (fillPos + 1) % size;
 			}
@@ -115,7 +139,7 @@ public class GAOptimizer extends Optimizer {
 	}
 
 	@Override
-	protected List<Integer> mutate(List<Integer> order) {
+	protected List<Integer> mutate(List<Integer> order, Random random) {
 
 		List<Integer> mutatedOrder = new ArrayList<>(order);
 		int index1 = random.nextInt(mutatedOrder.size());
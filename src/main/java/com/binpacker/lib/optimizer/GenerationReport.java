@@ -0,0 +1,24 @@
+package com.binpacker.lib.optimizer;
+
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Progress of an optimizer run after one generation.
+ */
+public class GenerationReport {
+	public final int generation;
+	public final double bestScore;
+	// Best packing of the generation, shared with the optimizer, do not modify
+	public final PackingResult best;
+	public final long generationNanos;
+	public final long elapsedNanos;
+
+	public GenerationReport(int generation, double bestScore, PackingResult best, long generationNanos,
+			long elapsedNanos) {
+		this.generation = generation;
+		this.bestScore = bestScore;
+		this.best = best;
+		this.generationNanos = generationNanos;
+		this.elapsedNanos = elapsedNanos;
+	}
+}
@@ -0,0 +1,202 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Runs many packing jobs on one shared work-stealing pool.
+ *
+ * Jobs advance one generation at a time. A small number of driver threads
+ * pick the next job by stride scheduling: every job has a pass value that
+ * grows by STRIDE / priority after each of its generations and the job with
+ * the lowest pass goes next, so with equal priorities jobs take turns and a
+ * job of priority 3 gets three generations for every one of a priority 1
+ * job. Newly submitted jobs start at the current pass so they neither jump
+ * ahead of nor wait behind long running jobs. All evaluations of all jobs
+ * run on the same pool, so the thread count does not grow with the number
+ * of jobs.
+ */
+public class JobScheduler {
+
+	private static final long STRIDE = 1 << 20;
+
+	private final ForkJoinPool pool;
+	private final Thread[] drivers;
+	private final Object lock = new Object();
+	private final PriorityQueue<PackingJob> ready = new PriorityQueue<>(
+			Comparator.comparingLong((PackingJob job) -> job.pass).thenComparingLong(job -> job.sequence));
+	private final List<PackingJob> running = new ArrayList<>();
+	private long currentPass = 0;
+	private long nextSequence = 0;
+	private boolean shutdown = false;
+
+	public JobScheduler() {
+		this(Runtime.getRuntime().availableProcessors(), 2);
+	}
+
+	/**
+	 * @param parallelism           threads of the shared evaluation pool
+	 * @param concurrentGenerations generations of different jobs that may run
+	 *                              at once, more than one keeps the pool busy
+	 *                              while a generation waits for its last
+	 *                              evaluations
+	 */
+	public JobScheduler(int parallelism, int concurrentGenerations) {
+		this.pool = new ForkJoinPool(Math.max(1, parallelism));
+		this.drivers = new Thread[Math.max(1, concurrentGenerations)];
+		for (int i = 0; i < drivers.length; i++) {
+			drivers[i] = new Thread(this::drive, "job-scheduler-" + i);
+			drivers[i].setDaemon(true);
+			drivers[i].start();
+		}
+	}
+
+	public PackingJob submit(PackingJob job) {
+		synchronized (lock) {
+			if (shutdown) {
+				throw new IllegalStateException("Scheduler is shut down");
+			}
+			job.pass = currentPass;
+			job.sequence = nextSequence++;
+			ready.add(job);
+			lock.notifyAll();
+		}
+		return job;
+	}
+
+	// Jobs waiting for their next generation
+	public int getQueueDepth() {
+		synchronized (lock) {
+			return ready.size();
+		}
+	}
+
+	// Jobs with a generation in progress
+	public int getRunningJobs() {
+		synchronized (lock) {
+			return running.size();
+		}
+	}
+
+	// Every unfinished job, running ones first
+	public List<PackingJob> getJobs() {
+		synchronized (lock) {
+			List<PackingJob> jobs = new ArrayList<>(running);
+			jobs.addAll(ready);
+			return jobs;
+		}
+	}
+
+	/**
+	 * Stops taking new generations, waits for the ones in progress and shuts
+	 * the pool down. Unfinished jobs end as cancelled.
+	 */
+	public void shutdown() {
+		List<PackingJob> dropped;
+		synchronized (lock) {
+			shutdown = true;
+			dropped = new ArrayList<>(ready);
+			ready.clear();
+			lock.notifyAll();
+		}
+		for (Thread driver : drivers) {
+			try {
+				driver.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		for (PackingJob job : dropped) {
+			end(job, PackingJob.State.CANCELLED);
+		}
+		pool.shutdown();
+	}
+
+	private void drive() {
+		while (true) {
+			PackingJob job;
+			synchronized (lock) {
+				while (ready.isEmpty() && !shutdown) {
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+				if (shutdown) {
+					return;
+				}
+				job = ready.poll();
+				currentPass = job.pass;
+				running.add(job);
+			}
+
+			boolean again;
+			try {
+				again = step(job);
+			} catch (RuntimeException e) {
+				job.optimizer = null;
+				job.fail(e);
+				again = false;
+			}
+
+			synchronized (lock) {
+				running.remove(job);
+				if (again && !shutdown) {
+					job.pass += STRIDE / job.getPriority();
+					ready.add(job);
+				} else if (again) {
+					end(job, PackingJob.State.CANCELLED);
+				}
+				lock.notifyAll();
+			}
+		}
+	}
+
+	// Runs one generation of a job, returns whether it needs more
+	private boolean step(PackingJob job) {
+		if (job.isCancelRequested()) {
+			return end(job, PackingJob.State.CANCELLED);
+		}
+		if (job.isExpired()) {
+			return end(job, PackingJob.State.EXPIRED);
+		}
+
+		if (job.optimizer == null) {
+			Optimizer optimizer = job.createOptimizer();
+			optimizer.setExecutor(pool);
+			optimizer.initialize(job.solver, job.boxes, job.bin, job.growingBin, job.growAxis, job.populationSize,
+					job.eliteCount);
+			job.optimizer = optimizer;
+			job.setState(PackingJob.State.RUNNING);
+		}
+
+		PackingResult best = job.optimizer.executeNextGeneration();
+		job.recordGeneration(best, job.optimizer.getBestScore());
+
+		if (job.getGeneration() >= job.getGenerations()) {
+			return end(job, PackingJob.State.DONE);
+		}
+		if (job.isExpired()) {
+			return end(job, PackingJob.State.EXPIRED);
+		}
+		return true;
+	}
+
+	// Finishes a job, evaluations it started for its next generation are dropped
+	private boolean end(PackingJob job, PackingJob.State state) {
+		if (job.optimizer != null) {
+			job.optimizer.cancelPending();
+		}
+		job.optimizer = null;
+		job.finish(state);
+		return false;
+	}
+}
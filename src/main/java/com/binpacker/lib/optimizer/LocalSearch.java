@@ -0,0 +1,188 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.solver.Decoder;
+import com.binpacker.lib.solver.IncrementalSolver;
+import com.binpacker.lib.solver.Solver;
+
+/**
+ * Bounded first-improvement local search over packing orders, used as the
+ * memetic stage of the optimizer.
+ *
+ * Each step applies a random swap, insertion or block move to the current
+ * order. Solvers implementing IncrementalSolver are only re-run from the
+ * first position where the candidate differs from the last decoded order;
+ * other solvers fall back to a full solve per candidate.
+ */
+class LocalSearch {
+
+	private static final int MAX_BLOCK = 8;
+
+	private final Solver solver;
+	private final PackingProblem problem;
+	private final ToDoubleFunction<PackingResult> rater;
+
+	final AtomicLong fullDecodes = new AtomicLong();
+	final AtomicLong deltaDecodes = new AtomicLong();
+	final AtomicLong improvements = new AtomicLong();
+
+	LocalSearch(Solver solver, PackingProblem problem, ToDoubleFunction<PackingResult> rater) {
+		this.solver = solver;
+		this.problem = problem;
+		this.rater = rater;
+	}
+
+	/**
+	 * Tries the given number of moves starting from an order and its score and
+	 * returns the best order found together with its packing.
+	 */
+	Result improve(List<Integer> start, double startScore, int moves, Random random) {
+		int n = start.size();
+		int[] current = new int[n];
+		for (int i = 0; i < n; i++) {
+			current[i] = start.get(i);
+		}
+		double currentScore = startScore;
+		int[] candidate = new int[n];
+
+		Decoder decoder = null;
+		int[] decoded = null;
+		if (solver instanceof IncrementalSolver) {
+			decoder = ((IncrementalSolver) solver).decoder(problem, n);
+			decoded = new int[n];
+			decodeFrom(decoder, current, decoded, 0);
+			fullDecodes.incrementAndGet();
+		}
+		PackingResult best = null;
+		boolean improved = false;
+
+		for (int m = 0; m < moves && n > 1; m++) {
+			System.arraycopy(current, 0, candidate, 0, n);
+			applyRandomMove(candidate, random);
+
+			PackingResult solved;
+			if (decoder != null) {
+				int from = 0;
+				while (from < n && decoded[from] == candidate[from]) {
+					from++;
+				}
+				if (from == n) {
+					continue; // move was a no-op
+				}
+				decodeFrom(decoder, candidate, decoded, from);
+				deltaDecodes.incrementAndGet();
+				solved = decoder.result();
+			} else {
+				solved = solver.pack(problem, candidate);
+				fullDecodes.incrementAndGet();
+			}
+
+			double score = rater.applyAsDouble(solved);
+			if (isBetter(score, currentScore)) {
+				int[] t = current;
+				current = candidate;
+				candidate = t;
+				currentScore = score;
+				improved = true;
+				if (decoder == null) {
+					best = solved;
+				}
+			}
+		}
+
+		if (!improved) {
+			return null;
+		}
+		improvements.incrementAndGet();
+
+		if (decoder != null) {
+			// the decoder may still hold the last rejected candidate
+			int from = 0;
+			while (from < n && decoded[from] == current[from]) {
+				from++;
+			}
+			if (from < n) {
+				decodeFrom(decoder, current, decoded, from);
+			}
+			best = decoder.result();
+		}
+
+		List<Integer> order = new ArrayList<>(n);
+		for (int idx : current) {
+			order.add(idx);
+		}
+		return new Result(order, currentScore, best);
+	}
+
+	private void decodeFrom(Decoder decoder, int[] order, int[] decoded, int from) {
+		decoder.truncate(from);
+		for (int i = from; i < order.length; i++) {
+			decoder.add(order[i]);
+			decoded[i] = order[i];
+		}
+	}
+
+	private void applyRandomMove(int[] order, Random random) {
+		int n = order.length;
+		int i = random.nextInt(n);
+		int j = random.nextInt(n);
+		switch (random.nextInt(3)) {
+			case 0: {
+				// swap two positions
+				int t = order[i];
+				order[i] = order[j];
+				order[j] = t;
+				break;
+			}
+			case 1:
+				// take one box out and insert it elsewhere
+				moveBlock(order, i, 1, j);
+				break;
+			default:
+				// move a short block of consecutive boxes
+				int length = 1 + random.nextInt(Math.min(MAX_BLOCK, n));
+				int from = Math.min(i, n - length);
+				moveBlock(order, from, length, Math.min(j, n - length));
+				break;
+		}
+	}
+
+	// Moves order[from, from + length) so that it starts at index to
+	private static void moveBlock(int[] order, int from, int length, int to) {
+		if (from == to) {
+			return;
+		}
+		int[] block = new int[length];
+		System.arraycopy(order, from, block, 0, length);
+		if (to < from) {
+			System.arraycopy(order, to, order, to + length, from - to);
+		} else {
+			System.arraycopy(order, from + length, order, from, to - from);
+		}
+		System.arraycopy(block, 0, order, to, length);
+	}
+
+	private boolean isBetter(double score, double than) {
+		// packing to a single growing bin is rated by height, lower is better
+		return problem.isGrowing() ? score < than : score > than;
+	}
+
+	static class Result {
+		final List<Integer> order;
+		final double score;
+		final PackingResult solved;
+
+		Result(List<Integer> order, double score, PackingResult solved) {
+			this.order = order;
+			this.score = score;
+			this.solved = solved;
+		}
+	}
+}
@@ -1,38 +1,110 @@
 package com.binpacker.lib.optimizer;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.solver.Solver;
+import com.binpacker.lib.solver.SolverWorkspace;
 
 public abstract class Optimizer {
 
+	// Members compared when the steady state mode picks a parent
+	private static final int TOURNAMENT_SIZE = 3;
+
 	private Solver solver;
 	protected List<Box> boxes;
 	private Bin bin;
+	// Built once per initialize and shared read-only by every evaluation
+	protected PackingProblem problem;
 
 	protected List<List<Integer>> boxOrders; // Population
-	private Random random = new Random();
+	// Every random draw of a run derives from the master seed. Each generation
+	// gets its own stream derived from the seed and the generation number, and
+	// every child gets a Random seeded from that stream in breeding order, so
+	// a run is reproducible whatever the thread count or task completion
+	// order, and a resumed run continues exactly like an uninterrupted one.
+	private Long seed = null;
+	private int generation = 0;
+	protected Random random;
 	protected int populationSize;
 	private int eliteCount;
 	protected boolean growingBin;
 	protected String growAxis;
 
-	protected abstract List<Integer> crossOver(List<Integer> parent1, List<Integer> parent2);
+	// Memetic stage, disabled unless setLocalSearch is called
+	private int localSearchElites = 0;
+	private int localSearchMoves = 0;
+	private LocalSearch localSearch;
+
+	// Prefix screening of children, disabled unless setScreening is called
+	private int screenPrefix = 0;
+	private double screenSurvival = 1.0;
+	private double screenAudit = 0.05;
+	private boolean elitesCarried = false;
+	private PrefixScreen screen;
+
+	// Caller provided orders for the initial population, by box index
+	private final List<List<Integer>> seedOrders = new ArrayList<>();
+	// Caller provided orders by box id, mapped onto the boxes at initialize
+	private final List<List<Integer>> seedIds = new ArrayList<>();
+
+	// Solution cache, consulted by initialize when set
+	private SolutionCache solutionCache;
+	private String cacheKey;
+	private int[] canonicalRanks;
+	private List<Integer> cachedOrder;
+	private double cachedScore = Double.NaN;
 
-	protected abstract List<Integer> mutate(List<Integer> order);
+	// Pool for evaluations, a private pool of this optimizer when null
+	private ExecutorService sharedExecutor;
+	private ExecutorService privateExecutor;
+	// Evaluations of the current population started while it was bred
+	private List<Future<ScoredSolution>> pendingEvaluations;
 
-	public abstract double rate(List<List<Box>> solution, Bin bin);
+	// Checkpointing, disabled unless setCheckpoint is called
+	private Path checkpointFile;
+	private int checkpointInterval = 0;
+	private long fingerprint;
+	private double[] carriedScores = new double[0];
+	private PackingResult bestSolution;
+	private double bestScore = Double.NaN;
+	private final AtomicReference<Checkpoint> pendingCheckpoint = new AtomicReference<>();
+	private ExecutorService checkpointWriter;
+	private Future<?> checkpointWrite;
+
+	// Breeding runs on the pool, several children at once, so crossOver and
+	// mutate must only read the parents and draw from the given random
+	protected abstract List<Integer> crossOver(List<Integer> parent1, List<Integer> parent2, Random random);
+
+	protected abstract List<Integer> mutate(List<Integer> order, Random random);
+
+	public abstract double rate(PackingResult solution, Bin bin);
 
 	// ---- Initialize ----
 	public void initialize(Solver solver, List<Box> boxes, Bin bin, boolean growingBin, String growAxis,
@@ -45,8 +117,364 @@ public abstract class Optimizer {
 		this.growAxis = growAxis;
 		this.populationSize = populationSize;
 		this.eliteCount = eliteCount;
+		this.problem = PackingProblem.of(boxes, bin, growingBin, growAxis);
+		this.localSearch = new LocalSearch(solver, problem, s -> rate(s, this.bin));
+		this.screen = new PrefixScreen(solver, problem);
+		this.elitesCarried = false;
+		cancelPending();
+
+		if (seed == null) {
+			seed = new SplittableRandom().nextLong();
+		}
+		this.generation = 0;
+		this.random = new Random(new SplittableRandom(seed).nextLong());
+		this.fingerprint = fingerprint();
+		this.carriedScores = new double[0];
+		this.bestSolution = null;
+		this.bestScore = Double.NaN;
 
 		generateInitialPopulation();
+		consultCache(injectSeeds());
+	}
+
+	/**
+	 * Adds an order of box indices to the initial population of the next
+	 * initialize call. Seeds replace the last, randomly generated orders.
+	 */
+	public void addSeed(List<Integer> order) {
+		seedOrders.add(new ArrayList<>(order));
+	}
+
+	/**
+	 * Adds a packing order given as box ids, for example the solution of an
+	 * earlier manifest. Ids missing from the boxes are skipped and boxes
+	 * missing from the order are inserted before the first seeded box of
+	 * smaller volume, so new large boxes still go early.
+	 */
+	public void addSeedByIds(List<Integer> ids) {
+		seedIds.add(new ArrayList<>(ids));
+	}
+
+	public void clearSeeds() {
+		seedOrders.clear();
+		seedIds.clear();
+	}
+
+	// Returns how many of the last slots hold seeds
+	private int injectSeeds() {
+		List<List<Integer>> seeds = new ArrayList<>();
+		for (List<Integer> order : seedOrders) {
+			if (!isPermutation(order)) {
+				throw new IllegalArgumentException("Seed order is not a permutation of the box indices");
+			}
+			seeds.add(new ArrayList<>(order));
+		}
+		for (List<Integer> ids : seedIds) {
+			seeds.add(mapIds(ids));
+		}
+
+		int slot = boxOrders.size() - 1;
+		for (List<Integer> seed : seeds) {
+			if (slot < 0) {
+				break;
+			}
+			boxOrders.set(slot--, seed);
+		}
+		return boxOrders.size() - 1 - slot;
+	}
+
+	private boolean isPermutation(List<Integer> order) {
+		if (order.size() != boxes.size()) {
+			return false;
+		}
+		boolean[] seen = new boolean[boxes.size()];
+		for (Integer idx : order) {
+			if (idx == null || idx < 0 || idx >= seen.length || seen[idx]) {
+				return false;
+			}
+			seen[idx] = true;
+		}
+		return true;
+	}
+
+	private List<Integer> mapIds(List<Integer> ids) {
+		Map<Integer, Integer> indexById = new HashMap<>();
+		for (int i = 0; i < boxes.size(); i++) {
+			indexById.putIfAbsent(boxes.get(i).id, i);
+		}
+
+		boolean[] used = new boolean[boxes.size()];
+		List<Integer> order = new ArrayList<>(boxes.size());
+		for (Integer id : ids) {
+			Integer idx = indexById.get(id);
+			if (idx != null && !used[idx]) {
+				used[idx] = true;
+				order.add(idx);
+			}
+		}
+
+		// boxes the seed does not know, largest first
+		List<Integer> missing = new ArrayList<>();
+		for (int i = 0; i < boxes.size(); i++) {
+			if (!used[i]) {
+				missing.add(i);
+			}
+		}
+		missing.sort(Comparator.comparingDouble(i -> -problem.volume(i)));
+
+		List<Integer> merged = new ArrayList<>(boxes.size());
+		int next = 0;
+		for (Integer idx : order) {
+			double volume = problem.volume(idx);
+			while (next < missing.size() && problem.volume(missing.get(next)) > volume) {
+				merged.add(missing.get(next++));
+			}
+			merged.add(idx);
+		}
+		while (next < missing.size()) {
+			merged.add(missing.get(next++));
+		}
+		return merged;
+	}
+
+	/**
+	 * Shares best orders with other runs on the same manifest. When the cache
+	 * knows the manifest, initialize puts the cached order into the initial
+	 * population so the run continues from it, and getCachedSolution returns
+	 * it packed without running any generation. Every generation offers its
+	 * best order back to the cache.
+	 */
+	public void setSolutionCache(SolutionCache solutionCache) {
+		this.solutionCache = solutionCache;
+	}
+
+	// Score of the cached order found by initialize, NaN on a miss
+	public double getCachedScore() {
+		return cachedScore;
+	}
+
+	// Packing of the cached order found by initialize, null on a miss
+	public PackingResult getCachedSolution() {
+		if (cachedOrder == null) {
+			return null;
+		}
+		return solver.pack(problem, toArray(cachedOrder));
+	}
+
+	// The cached order takes the last slot no seed holds, unless a seed is
+	// the same order
+	private void consultCache(int seeded) {
+		cachedOrder = null;
+		cachedScore = Double.NaN;
+		if (solutionCache == null) {
+			return;
+		}
+		cacheKey = SolutionCache.key(boxes, bin, solver, growingBin, growAxis);
+		canonicalRanks = SolutionCache.ranks(boxes);
+		SolutionCache.Entry entry = solutionCache.get(cacheKey);
+		if (entry == null || entry.ranks.length != boxes.size()) {
+			return;
+		}
+
+		int[] indexByRank = new int[canonicalRanks.length];
+		for (int i = 0; i < canonicalRanks.length; i++) {
+			indexByRank[canonicalRanks[i]] = i;
+		}
+		List<Integer> order = new ArrayList<>(entry.ranks.length);
+		for (int rank : entry.ranks) {
+			order.add(indexByRank[rank]);
+		}
+		cachedOrder = order;
+		cachedScore = entry.score;
+		int slot = boxOrders.size() - 1 - seeded;
+		if (slot >= 0 && !boxOrders.subList(slot + 1, boxOrders.size()).contains(order)) {
+			boxOrders.set(slot, new ArrayList<>(order));
+		}
+	}
+
+	private void offerToCache(List<Integer> order, double score) {
+		int[] ranks = new int[order.size()];
+		for (int i = 0; i < ranks.length; i++) {
+			ranks[i] = canonicalRanks[order.get(i)];
+		}
+		solutionCache.offer(cacheKey, ranks, score, growingBin);
+	}
+
+	/**
+	 * Runs breeding and evaluations on the given pool instead of a private
+	 * one. The optimizer never shuts a shared pool down. Passing null goes
+	 * back to the private pool.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.sharedExecutor = executor;
+	}
+
+	/**
+	 * Fixes the master seed of the next initialize call. Runs with the same
+	 * seed, inputs and settings produce identical populations and results.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	// Master seed of the current run, chosen at random unless set
+	public long getSeed() {
+		return seed == null ? 0 : seed;
+	}
+
+	// Number of generations executed so far, including resumed ones
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Writes a checkpoint to {@code file} after every {@code interval}
+	 * generations. Checkpoints are written by a background thread, a
+	 * checkpoint still waiting to be written is replaced by a newer one.
+	 * Passing null or an interval of 0 disables checkpointing.
+	 */
+	public void setCheckpoint(Path file, int interval) {
+		this.checkpointFile = file;
+		this.checkpointInterval = Math.max(0, interval);
+	}
+
+	/**
+	 * Cancels the evaluations of the next generation that were started when
+	 * the last one was bred. Call it when a run ends, so the pool does not
+	 * keep evaluating a generation nobody executes. A later generation
+	 * evaluates its population again.
+	 */
+	public void cancelPending() {
+		List<Future<ScoredSolution>> pending = pendingEvaluations;
+		pendingEvaluations = null;
+		if (pending != null) {
+			for (Future<ScoredSolution> future : pending) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	// Blocks until checkpoints taken so far are on disk
+	public void awaitCheckpoint() {
+		Future<?> write = checkpointWrite;
+		if (write == null) {
+			return;
+		}
+		try {
+			write.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			System.err.println("Failed to write checkpoint: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Continues a run from a checkpoint. Must be called after initialize with
+	 * the same boxes, bin and grow settings as the checkpointed run, and
+	 * replaces the seed, generation counter and population.
+	 */
+	public void resume(Path file) throws IOException {
+		Checkpoint checkpoint = Checkpoint.read(file);
+		if (checkpoint.fingerprint != fingerprint || checkpoint.boxCount != boxes.size()) {
+			throw new IOException("Checkpoint was written for a different problem: " + file);
+		}
+		this.seed = checkpoint.seed;
+		this.generation = checkpoint.generation;
+		this.elitesCarried = checkpoint.elitesCarried;
+		this.boxOrders = checkpoint.population();
+		this.carriedScores = checkpoint.scores;
+		cancelPending();
+		this.bestSolution = checkpoint.best;
+		this.bestScore = checkpoint.bestScore;
+	}
+
+	// Best solution of the last generation, or of the checkpoint resumed from
+	public PackingResult getBestSolution() {
+		return bestSolution;
+	}
+
+	public double getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * Publisher that runs this optimizer for up to {@code generations}
+	 * generations once subscribed to and reports after each one.
+	 */
+	public ProgressPublisher publish(int generations) {
+		return new ProgressPublisher(this, generations);
+	}
+
+	/**
+	 * Enables a short local search on the best orders of every generation.
+	 * Each of the top {@code elites} orders gets {@code moves} attempted swap,
+	 * insertion or block moves, and improvements replace the order in the
+	 * population. Passing 0 for either value disables the stage.
+	 */
+	public void setLocalSearch(int elites, int moves) {
+		this.localSearchElites = Math.max(0, elites);
+		this.localSearchMoves = Math.max(0, moves);
+	}
+
+	/**
+	 * Enables screening of children: only the first {@code prefixLength} boxes
+	 * of each child are packed, and only the best {@code survivalRatio} of them
+	 * by prefix packing density are packed in full and can become parents.
+	 * Elites carried over from the previous generation are never screened.
+	 * Passing 0 as the prefix length disables screening.
+	 */
+	public void setScreening(int prefixLength, double survivalRatio) {
+		this.screenPrefix = Math.max(0, prefixLength);
+		this.screenSurvival = Math.min(1.0, Math.max(0.0, survivalRatio));
+	}
+
+	/**
+	 * Share of discarded children that are still packed in full, only to
+	 * measure how often screening throws away a good child. Defaults to 0.05.
+	 */
+	public void setScreeningAudit(double auditRatio) {
+		this.screenAudit = Math.min(1.0, Math.max(0.0, auditRatio));
+	}
+
+	// Number of children that were rated from a prefix
+	public long getScreenedChildren() {
+		return screen == null ? 0 : screen.screened.get();
+	}
+
+	// Number of screened children that were not packed in full
+	public long getDiscardedChildren() {
+		return screen == null ? 0 : screen.discarded.get();
+	}
+
+	// Number of discarded children packed in full for the audit
+	public long getAuditedChildren() {
+		return screen == null ? 0 : screen.audited.get();
+	}
+
+	// Audited children that would have been the best of their generation
+	public long getMissedWinners() {
+		return screen == null ? 0 : screen.missedWinners.get();
+	}
+
+	// Audited children that would have made the elite of their generation
+	public long getMissedElites() {
+		return screen == null ? 0 : screen.missedElites.get();
+	}
+
+	// Number of solver runs from the first box made by the local search
+	public long getFullDecodes() {
+		return localSearch == null ? 0 : localSearch.fullDecodes.get();
+	}
+
+	// Number of local search candidates decoded from their first changed box
+	public long getDeltaDecodes() {
+		return localSearch == null ? 0 : localSearch.deltaDecodes.get();
+	}
+
+	// Number of elite orders the local search improved
+	public long getLocalSearchImprovements() {
+		return localSearch == null ? 0 : localSearch.improvements.get();
 	}
 
 	public void generateInitialPopulation() {
@@ -64,99 +492,506 @@ public abstract class Optimizer {
 	}
 
 	// ---- Main GA Logic ----
-	public List<List<Box>> executeNextGeneration() {
+	public PackingResult executeNextGeneration() {
+		SplittableRandom generationRandom = generationRandom(generation);
 
-		List<ScoredSolution> scored = new ArrayList<>();
-
-		int numThreads = Runtime.getRuntime().availableProcessors();
-		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-		List<Future<ScoredSolution>> futures = new ArrayList<>();
+		ExecutorService executor = executor();
 
-		for (List<Integer> order : boxOrders) {
-			futures.add(executor.submit(() -> {
-				List<Box> orderedBoxes = applyOrder(order);
-				List<List<Box>> solved = solver.solve(orderedBoxes, bin, growingBin, growAxis);
-				double score = rate(solved, this.bin);
-				return new ScoredSolution(order, score, solved);
-			}));
-		}
-
-		for (Future<ScoredSolution> future : futures) {
-			try {
-				scored.add(future.get());
-			} catch (InterruptedException | ExecutionException e) {
-				Thread.currentThread().interrupt(); // Restore interrupt status
-				// Handle or log the exception, e.g., System.err.println("Error processing task:
-				// " + e.getMessage());
-			}
+		List<ScoredSolution> scored = new ArrayList<>();
+		List<ScoredSolution> audits = new ArrayList<>();
+		if (screening()) {
+			cancelPending();
+			evaluateScreened(executor, scored, audits, generationRandom);
+		} else if (pendingEvaluations != null) {
+			// evaluations were started while the population was bred, after a
+			// failure the next generation evaluates the population again
+			List<Future<ScoredSolution>> pending = pendingEvaluations;
+			pendingEvaluations = null;
+			collect(pending, scored);
+		} else {
+			evaluate(executor, boxOrders, scored);
 		}
-		executor.shutdown();
-		try {
-			if (!executor.awaitTermination(3, TimeUnit.MINUTES)) { // Wait for tasks to complete
-				// Optionally, force shutdown if tasks don't complete in time
-				executor.shutdownNow();
-			}
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
-			executor.shutdownNow(); // Cancel currently executing tasks
+		sortBestFirst(scored);
+		if (!audits.isEmpty()) {
+			recordAudits(scored, audits);
 		}
 
-		// Sort best to worst, order is reverse when packing to a single bin
-		// (lower height is better)
-		if (!growingBin) {
-			scored.sort(Comparator.comparingDouble(s -> -s.score));
-		} else {
-			scored.sort(Comparator.comparingDouble(s -> s.score));
+		if (localSearchElites > 0 && localSearchMoves > 0) {
+			improveElites(scored, executor, generationRandom);
+			sortBestFirst(scored);
 		}
 
 		// Best solution of this generation → returned
-		List<List<Box>> bestSolution = scored.get(0).solved;
+		PackingResult bestSolution = solved(scored.get(0));
 
 		// ---------------------------------------------------------
 		// Build next generation
 		// ---------------------------------------------------------
-		List<List<Integer>> nextGen = new ArrayList<>();
+		// Children are bred in parallel and, unless they will be screened,
+		// submitted for evaluation as soon as each one is bred, so the next
+		// generation is already being evaluated when this one returns. Every
+		// random draw happens here in breeding order, the tasks only use their
+		// own child stream, so the population does not depend on the threads.
+		boolean pipeline = !screening();
+		List<CompletableFuture<List<Integer>>> bred = new ArrayList<>();
+		List<Future<ScoredSolution>> evaluations = new ArrayList<>();
 
-		// 1. Keep the elite (top 20%)
+		// 1. Keep the elite (top 20%), their scores are known already
 		for (int i = 0; i < eliteCount; i++) {
-			nextGen.add(new ArrayList<>(scored.get(i).order));
+			ScoredSolution elite = scored.get(i);
+			List<Integer> order = new ArrayList<>(elite.order);
+			bred.add(CompletableFuture.completedFuture(order));
+			evaluations.add(CompletableFuture.completedFuture(new ScoredSolution(order, elite.score, elite.solved)));
 		}
 
 		// 2. Fill remaining 80% with crossover or mutation
-		while (nextGen.size() < populationSize) {
+		while (bred.size() < populationSize) {
 
-			if (random.nextBoolean()) {
+			Random childRandom = new Random(generationRandom.nextLong());
+			CompletableFuture<List<Integer>> child;
+			if (generationRandom.nextBoolean()) {
 				// crossover
-				List<Integer> p1 = scored.get(random.nextInt(eliteCount)).order;
-				List<Integer> p2 = scored.get(random.nextInt(eliteCount)).order;
-				nextGen.add(crossOver(p1, p2));
+				List<Integer> p1 = scored.get(generationRandom.nextInt(eliteCount)).order;
+				List<Integer> p2 = scored.get(generationRandom.nextInt(eliteCount)).order;
+				child = CompletableFuture.supplyAsync(() -> crossOver(p1, p2, childRandom), executor);
 			} else {
 				// mutation
-				List<Integer> p = scored.get(random.nextInt(eliteCount)).order;
-				nextGen.add(mutate(p));
+				List<Integer> p = scored.get(generationRandom.nextInt(eliteCount)).order;
+				child = CompletableFuture.supplyAsync(() -> mutate(p, childRandom), executor);
 			}
+			bred.add(child);
+			if (pipeline) {
+				evaluations.add(child.thenApplyAsync(this::evaluate, executor));
+			}
+		}
+
+		List<List<Integer>> nextGen = new ArrayList<>();
+		for (CompletableFuture<List<Integer>> child : bred) {
+			nextGen.add(child.join());
 		}
 
 		// Replace population and increment generation counter
 		this.boxOrders = nextGen;
+		this.pendingEvaluations = pipeline ? evaluations : null;
+		this.elitesCarried = true;
+		this.generation++;
+		this.carriedScores = new double[eliteCount];
+		for (int i = 0; i < eliteCount; i++) {
+			carriedScores[i] = scored.get(i).score;
+		}
+		this.bestSolution = bestSolution;
+		this.bestScore = scored.get(0).score;
+		if (solutionCache != null) {
+			offerToCache(scored.get(0).order, bestScore);
+		}
 
+		if (checkpointFile != null && checkpointInterval > 0 && generation % checkpointInterval == 0) {
+			scheduleCheckpoint();
+		}
+
+		return bestSolution;
+	}
+
+	/**
+	 * Runs the optimizer without a generation barrier until {@code children}
+	 * children were evaluated or {@code budgetMillis} passed, 0 meaning no
+	 * time limit. Every worker thread on its own picks two parents by
+	 * tournament, breeds, evaluates and puts the child into the population in
+	 * place of the worst order if it is better. A slow decode then only holds
+	 * up its own worker, which matters for solvers whose decode time varies a
+	 * lot, like MOAB.
+	 *
+	 * Returns the best solution found. The population ends up sorted best
+	 * first and a later executeNextGeneration continues from it. Screening,
+	 * local search and the generation counter are not used, and since
+	 * children are inserted in completion order a run is not reproducible
+	 * even with a fixed seed.
+	 */
+	public PackingResult runSteadyState(long children, long budgetMillis) {
+		ExecutorService executor = executor();
+		long deadline = budgetMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis)
+				: Long.MAX_VALUE;
+
+		List<ScoredSolution> population = new ArrayList<>();
+		if (pendingEvaluations != null) {
+			List<Future<ScoredSolution>> pending = pendingEvaluations;
+			pendingEvaluations = null;
+			collect(pending, population);
+		} else {
+			evaluate(executor, boxOrders, population);
+		}
+
+		// one worker per pool thread, each with its own stream derived from the seed
+		SplittableRandom stream = generationRandom(generation);
+		AtomicLong started = new AtomicLong();
+		// set when a worker failed or the caller stopped waiting, workers stop
+		// after their current child
+		AtomicBoolean stop = new AtomicBoolean();
+		List<Future<Object>> workers = new ArrayList<>();
+		for (int i = 0; i < parallelism(executor); i++) {
+			Random workerRandom = new Random(stream.nextLong());
+			workers.add(executor.submit(() -> {
+				try {
+					while (!stop.get() && started.getAndIncrement() < children && System.nanoTime() < deadline) {
+						breedSteadyState(population, workerRandom);
+					}
+				} catch (RuntimeException | Error e) {
+					stop.set(true);
+					throw e;
+				}
+				return null;
+			}));
+		}
+		try {
+			collect(workers, new ArrayList<>());
+		} finally {
+			stop.set(true);
+		}
+
+		sortBestFirst(population);
+		List<List<Integer>> orders = new ArrayList<>();
+		List<Future<ScoredSolution>> evaluated = new ArrayList<>();
+		this.carriedScores = new double[population.size()];
+		for (int i = 0; i < population.size(); i++) {
+			orders.add(population.get(i).order);
+			evaluated.add(CompletableFuture.completedFuture(population.get(i)));
+			carriedScores[i] = population.get(i).score;
+		}
+		// the scores are known, the next generation does not pack them again
+		this.boxOrders = orders;
+		this.pendingEvaluations = screening() ? null : evaluated;
+		this.elitesCarried = true;
+		this.bestSolution = solved(population.get(0));
+		this.bestScore = population.get(0).score;
+		if (solutionCache != null) {
+			offerToCache(population.get(0).order, bestScore);
+		}
 		return bestSolution;
 	}
 
-	// --- Helper: apply an index order to the box list ---
-	private List<Box> applyOrder(List<Integer> order) {
-		List<Box> result = new ArrayList<>();
-		for (Integer idx : order)
-			result.add(boxes.get(idx));
+	// One steady state step: select, breed, evaluate and replace the worst
+	private void breedSteadyState(List<ScoredSolution> population, Random random) {
+		List<Integer> child;
+		if (random.nextBoolean()) {
+			List<Integer> p1 = tournament(population, random);
+			List<Integer> p2 = tournament(population, random);
+			child = crossOver(p1, p2, random);
+		} else {
+			child = mutate(tournament(population, random), random);
+		}
+		ScoredSolution scored = evaluate(child);
+
+		synchronized (population) {
+			int worst = 0;
+			for (int i = 1; i < population.size(); i++) {
+				if (isBetter(population.get(worst).score, population.get(i).score)) {
+					worst = i;
+				}
+			}
+			if (isBetter(scored.score, population.get(worst).score)) {
+				population.set(worst, scored);
+			}
+		}
+	}
+
+	// Best of a few random members, orders are never changed once inserted
+	private List<Integer> tournament(List<ScoredSolution> population, Random random) {
+		synchronized (population) {
+			ScoredSolution best = population.get(random.nextInt(population.size()));
+			for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+				ScoredSolution other = population.get(random.nextInt(population.size()));
+				if (isBetter(other.score, best.score)) {
+					best = other;
+				}
+			}
+			return best.order;
+		}
+	}
+
+	// Stream of one generation, derived from the seed and generation alone
+	private SplittableRandom generationRandom(int generation) {
+		long z = seed + (generation + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return new SplittableRandom(z ^ (z >>> 33));
+	}
+
+	// --- Checkpointing ---
+	private void scheduleCheckpoint() {
+		// orders are copied here, the writer thread only touches the snapshot
+		Checkpoint checkpoint = new Checkpoint();
+		checkpoint.fingerprint = fingerprint;
+		checkpoint.seed = seed;
+		checkpoint.generation = generation;
+		checkpoint.elitesCarried = elitesCarried;
+		checkpoint.boxCount = boxes.size();
+		checkpoint.orders = new int[boxOrders.size()][];
+		checkpoint.scores = new double[boxOrders.size()];
+		for (int i = 0; i < boxOrders.size(); i++) {
+			List<Integer> order = boxOrders.get(i);
+			checkpoint.orders[i] = new int[order.size()];
+			for (int j = 0; j < order.size(); j++) {
+				checkpoint.orders[i][j] = order.get(j);
+			}
+			checkpoint.scores[i] = i < carriedScores.length ? carriedScores[i] : Double.NaN;
+		}
+		checkpoint.best = bestSolution;
+		checkpoint.bestScore = bestScore;
+
+		Path file = checkpointFile;
+		if (pendingCheckpoint.getAndSet(checkpoint) != null) {
+			return; // the queued write picks up the newer snapshot
+		}
+		if (checkpointWriter == null) {
+			checkpointWriter = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "optimizer-checkpoint");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		checkpointWrite = checkpointWriter.submit(() -> {
+			Checkpoint latest = pendingCheckpoint.getAndSet(null);
+			try {
+				latest.write(file);
+			} catch (IOException e) {
+				System.err.println("Failed to write checkpoint: " + e.getMessage());
+			}
+		});
+	}
+
+	// Identifies the boxes and bin settings a checkpoint belongs to
+	private long fingerprint() {
+		long hash = 17;
+		for (Box box : boxes) {
+			hash = hash * 31 + box.id;
+			hash = hash * 31 + Float.floatToIntBits(box.size.x);
+			hash = hash * 31 + Float.floatToIntBits(box.size.y);
+			hash = hash * 31 + Float.floatToIntBits(box.size.z);
+		}
+		hash = hash * 31 + Float.floatToIntBits(bin.w);
+		hash = hash * 31 + Float.floatToIntBits(bin.h);
+		hash = hash * 31 + Float.floatToIntBits(bin.d);
+		hash = hash * 31 + (growingBin ? 1 : 0);
+		hash = hash * 31 + (growAxis == null ? 0 : growAxis.hashCode());
+		return hash;
+	}
+
+	// --- Full evaluation of every order ---
+	private void evaluate(ExecutorService executor, List<List<Integer>> orders, List<ScoredSolution> scored) {
+		List<Future<ScoredSolution>> futures = new ArrayList<>();
+
+		for (List<Integer> order : orders) {
+			futures.add(executor.submit(() -> evaluate(order)));
+		}
+
+		collect(futures, scored);
+	}
+
+	// Packs into the workspace of the thread and keeps only the score, the
+	// few orders whose packing is needed are packed again by solved()
+	private ScoredSolution evaluate(List<Integer> order) {
+		SolverWorkspace workspace = SolverWorkspace.acquire();
+		try {
+			PackingResult packed = solver.pack(problem, workspace.order(order), workspace);
+			return new ScoredSolution(order, rate(packed, this.bin), null);
+		} finally {
+			workspace.release();
+		}
+	}
+
+	// Packing of a scored order, packed again if only the score was kept
+	private PackingResult solved(ScoredSolution scored) {
+		if (scored.solved == null) {
+			scored.solved = solver.pack(problem, toArray(scored.order));
+		}
+		return scored.solved;
+	}
+
+	private boolean screening() {
+		return screenPrefix > 0 && screenPrefix < boxes.size() && screenSurvival < 1.0;
+	}
+
+	// Pool evaluations and breeding run on, the shared one when set
+	private ExecutorService executor() {
+		if (sharedExecutor != null) {
+			return sharedExecutor;
+		}
+		if (privateExecutor == null) {
+			int numThreads = Runtime.getRuntime().availableProcessors();
+			// idle threads end, so an optimizer nobody runs anymore holds none
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), r -> {
+						Thread thread = new Thread(r, "optimizer-worker");
+						thread.setDaemon(true);
+						return thread;
+					});
+			pool.allowCoreThreadTimeOut(true);
+			privateExecutor = pool;
+		}
+		return privateExecutor;
+	}
+
+	// Threads of the pool, so steady state workers do not queue behind each
+	// other in a small shared pool
+	private static int parallelism(ExecutorService executor) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		if (executor instanceof ForkJoinPool) {
+			return Math.min(cores, ((ForkJoinPool) executor).getParallelism());
+		}
+		if (executor instanceof ThreadPoolExecutor) {
+			return Math.min(cores, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+		}
+		return cores;
+	}
+
+	// --- Screened evaluation: rate children by a prefix, finish the best ---
+	private void evaluateScreened(ExecutorService executor, List<ScoredSolution> scored,
+			List<ScoredSolution> audits, SplittableRandom generationRandom) {
+		int exempt = elitesCarried ? Math.min(eliteCount, boxOrders.size()) : 0;
+
+		List<Future<PrefixScreen.Candidate>> screening = new ArrayList<>();
+		for (List<Integer> order : boxOrders.subList(exempt, boxOrders.size())) {
+			screening.add(executor.submit(() -> screen.screen(order, screenPrefix)));
+		}
+		evaluate(executor, boxOrders.subList(0, exempt), scored);
+
+		List<PrefixScreen.Candidate> candidates = new ArrayList<>();
+		collect(screening, candidates);
+		// denser prefixes first
+		candidates.sort(Comparator.comparingDouble(c -> -c.estimate));
+
+		// the next generation needs at least eliteCount parents
+		int survivors = (int) Math.ceil(candidates.size() * screenSurvival);
+		survivors = Math.min(candidates.size(), Math.max(survivors, eliteCount - exempt));
+
+		List<Future<ScoredSolution>> finished = new ArrayList<>();
+		List<Future<ScoredSolution>> audited = new ArrayList<>();
+		for (int i = 0; i < candidates.size(); i++) {
+			PrefixScreen.Candidate candidate = candidates.get(i);
+			boolean survives = i < survivors;
+			if (!survives) {
+				screen.discarded.incrementAndGet();
+				if (generationRandom.nextDouble() >= screenAudit) {
+					continue;
+				}
+			}
+			Future<ScoredSolution> future = executor.submit(() -> {
+				PackingResult solved = screen.finish(candidate);
+				return new ScoredSolution(candidate.order, rate(solved, this.bin), solved);
+			});
+			(survives ? finished : audited).add(future);
+		}
+
+		collect(finished, scored);
+		collect(audited, audits);
+	}
+
+	// Compares fully packed discarded children against the kept ones
+	private void recordAudits(List<ScoredSolution> scored, List<ScoredSolution> audits) {
+		double best = scored.get(0).score;
+		double lastElite = scored.get(Math.min(eliteCount, scored.size()) - 1).score;
+		for (ScoredSolution audit : audits) {
+			screen.audited.incrementAndGet();
+			if (isBetter(audit.score, best)) {
+				screen.missedWinners.incrementAndGet();
+			}
+			if (isBetter(audit.score, lastElite)) {
+				screen.missedElites.incrementAndGet();
+			}
+		}
+	}
+
+	private boolean isBetter(double score, double than) {
+		return growingBin ? score < than : score > than;
+	}
+
+	// Adds the result of every task in order. If one fails the tasks not yet
+	// collected are cancelled, so no result is silently left out.
+	private static <T> void collect(List<Future<T>> futures, List<T> results) {
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				results.add(await(futures.get(i)));
+			} catch (RuntimeException | Error e) {
+				for (Future<T> rest : futures.subList(i + 1, futures.size())) {
+					rest.cancel(false);
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Result of a pool task. A task that threw fails the caller with the same
+	 * exception. An interrupt while waiting restores the interrupt status and
+	 * ends the wait with a CancellationException.
+	 */
+	private static <T> T await(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			CancellationException cancelled = new CancellationException("Interrupted while waiting for a task");
+			cancelled.initCause(e);
+			throw cancelled;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CompletionException(cause);
+		}
+	}
+
+	// Sort best to worst, order is reverse when packing to a single bin
+	// (lower height is better)
+	private void sortBestFirst(List<ScoredSolution> scored) {
+		if (!growingBin) {
+			scored.sort(Comparator.comparingDouble(s -> -s.score));
+		} else {
+			scored.sort(Comparator.comparingDouble(s -> s.score));
+		}
+	}
+
+	// --- Memetic stage: local search on the best orders ---
+	private void improveElites(List<ScoredSolution> scored, ExecutorService executor,
+			SplittableRandom generationRandom) {
+		int count = Math.min(localSearchElites, scored.size());
+		List<Future<LocalSearch.Result>> futures = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ScoredSolution start = scored.get(i);
+			Random taskRandom = new Random(generationRandom.nextLong());
+			futures.add(executor.submit(
+					() -> localSearch.improve(start.order, start.score, localSearchMoves, taskRandom)));
+		}
+
+		List<LocalSearch.Result> results = new ArrayList<>();
+		collect(futures, results);
+		for (int i = 0; i < count; i++) {
+			LocalSearch.Result improved = results.get(i);
+			if (improved != null) {
+				scored.set(i, new ScoredSolution(improved.order, improved.score, improved.solved));
+			}
+		}
+	}
+
+	// --- Helper: an order as the index array the solvers take ---
+	private static int[] toArray(List<Integer> order) {
+		int[] result = new int[order.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = order.get(i);
 		return result;
 	}
 
 	private static class ScoredSolution {
 		final List<Integer> order;
 		final double score;
-		final List<List<Box>> solved;
+		// null until asked for when the order was packed into a workspace
+		PackingResult solved;
 
-		ScoredSolution(List<Integer> order, double score, List<List<Box>> solved) {
+		ScoredSolution(List<Integer> order, double score, PackingResult solved) {
 			this.order = order;
 			this.score = score;
 			this.solved = solved;
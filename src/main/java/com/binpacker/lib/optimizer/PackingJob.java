@@ -0,0 +1,152 @@
+package com.binpacker.lib.optimizer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.solver.Solver;
+
+/**
+ * One optimization run submitted to a JobScheduler.
+ *
+ * Progress getters may be called from any thread while the job runs. The
+ * result future completes with the best packing found when the job runs all
+ * its generations, passes its deadline or is cancelled after its first
+ * generation.
+ */
+public class PackingJob {
+
+	public enum State {
+		QUEUED, RUNNING, DONE, EXPIRED, CANCELLED, FAILED
+	}
+
+	final Solver solver;
+	final List<Box> boxes;
+	final Bin bin;
+	final boolean growingBin;
+	final String growAxis;
+	final int populationSize;
+	final int eliteCount;
+	final int generations;
+
+	private int priority = 1;
+	private Instant deadline = null;
+	private Supplier<Optimizer> optimizerFactory = GAOptimizer::new;
+
+	// Scheduler bookkeeping, guarded by the scheduler lock
+	Optimizer optimizer;
+	long pass;
+	long sequence;
+
+	private volatile State state = State.QUEUED;
+	private volatile int generation = 0;
+	private volatile double bestScore = Double.NaN;
+	private volatile PackingResult best;
+	private volatile boolean cancelRequested = false;
+	private final CompletableFuture<PackingResult> result = new CompletableFuture<>();
+
+	public PackingJob(Solver solver, List<Box> boxes, Bin bin, boolean growingBin, String growAxis,
+			int populationSize, int eliteCount, int generations) {
+		this.solver = solver;
+		this.boxes = boxes;
+		this.bin = bin;
+		this.growingBin = growingBin;
+		this.growAxis = growAxis;
+		this.populationSize = populationSize;
+		this.eliteCount = eliteCount;
+		this.generations = generations;
+	}
+
+	// Share of generations this job gets relative to others, at least 1
+	public void setPriority(int priority) {
+		this.priority = Math.max(1, priority);
+	}
+
+	public int getPriority() {
+		return priority;
+	}
+
+	// The job stops with its best packing so far once this passes
+	public void setDeadline(Instant deadline) {
+		this.deadline = deadline;
+	}
+
+	public Instant getDeadline() {
+		return deadline;
+	}
+
+	public void setOptimizerFactory(Supplier<Optimizer> optimizerFactory) {
+		this.optimizerFactory = optimizerFactory;
+	}
+
+	// Stops the job before its next generation
+	public void cancel() {
+		cancelRequested = true;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	public int getGenerations() {
+		return generations;
+	}
+
+	public double getBestScore() {
+		return bestScore;
+	}
+
+	public PackingResult getBest() {
+		return best;
+	}
+
+	public CompletableFuture<PackingResult> result() {
+		return result;
+	}
+
+	boolean isCancelRequested() {
+		return cancelRequested;
+	}
+
+	boolean isExpired() {
+		return deadline != null && Instant.now().isAfter(deadline);
+	}
+
+	Optimizer createOptimizer() {
+		return optimizerFactory.get();
+	}
+
+	void setState(State state) {
+		this.state = state;
+	}
+
+	void recordGeneration(PackingResult best, double bestScore) {
+		this.best = best;
+		this.bestScore = bestScore;
+		this.generation++;
+	}
+
+	void finish(State state) {
+		this.state = state;
+		if (best != null) {
+			result.complete(best);
+		} else if (state == State.CANCELLED) {
+			result.cancel(false);
+		} else {
+			result.completeExceptionally(new IllegalStateException("Job ended before its first generation"));
+		}
+	}
+
+	void fail(Throwable cause) {
+		this.state = State.FAILED;
+		result.completeExceptionally(cause);
+	}
+}
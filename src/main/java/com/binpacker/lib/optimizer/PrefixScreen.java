@@ -0,0 +1,113 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.solver.Decoder;
+import com.binpacker.lib.solver.IncrementalSolver;
+import com.binpacker.lib.solver.Solver;
+
+/**
+ * Cheap pre-rating of child orders from their first boxes.
+ *
+ * Only a prefix of every child is packed and the children are ranked by how
+ * densely that prefix was packed: placed volume over the closed bins and the
+ * part of the open bin its boxes reach, or per unit of length along the
+ * growing axis. Different prefixes hold different boxes, so the raw score of
+ * the optimizer would favor whichever prefix happens to hold the small
+ * boxes, and volume per bin whichever holds the large ones. For incremental solvers the surviving prefixes are
+ * resumed instead of packed again from the start.
+ */
+class PrefixScreen {
+
+	private final Solver solver;
+	private final PackingProblem problem;
+
+	final AtomicLong screened = new AtomicLong();
+	final AtomicLong discarded = new AtomicLong();
+	final AtomicLong audited = new AtomicLong();
+	final AtomicLong missedWinners = new AtomicLong();
+	final AtomicLong missedElites = new AtomicLong();
+
+	PrefixScreen(Solver solver, PackingProblem problem) {
+		this.solver = solver;
+		this.problem = problem;
+	}
+
+	Candidate screen(List<Integer> order, int prefixLength) {
+		screened.incrementAndGet();
+		int k = Math.min(prefixLength, order.size());
+		PackingResult prefix;
+		Decoder decoder = null;
+		if (solver instanceof IncrementalSolver) {
+			decoder = ((IncrementalSolver) solver).decoder(problem, order.size());
+			for (int i = 0; i < k; i++) {
+				decoder.add(order.get(i));
+			}
+			prefix = decoder.result();
+		} else {
+			prefix = solver.pack(problem, applyOrder(order, k));
+		}
+		return new Candidate(order, density(prefix), decoder, k);
+	}
+
+	// Packs the rest of a screened order
+	PackingResult finish(Candidate candidate) {
+		if (candidate.decoder == null) {
+			return solver.pack(problem, applyOrder(candidate.order, candidate.order.size()));
+		}
+		for (int i = candidate.prefixLength; i < candidate.order.size(); i++) {
+			candidate.decoder.add(candidate.order.get(i));
+		}
+		return candidate.decoder.result();
+	}
+
+	// Packed volume over the space the prefix takes up: its closed bins in
+	// full, and the open bin or the growing bin up to where its boxes reach.
+	// Flat bins count areas.
+	private double density(PackingResult prefix) {
+		boolean flat = problem.binD() == 0;
+		int open = prefix.binCount - 1;
+		double volume = 0;
+		float reachX = 0, reachY = 0, reachZ = 0;
+		for (int i = 0; i < prefix.size; i++) {
+			volume += flat ? (double) prefix.w[i] * prefix.h[i] : prefix.getVolume(i);
+			if (prefix.bins[i] == open) {
+				reachX = Math.max(reachX, prefix.x[i] + prefix.w[i]);
+				reachY = Math.max(reachY, prefix.y[i] + prefix.h[i]);
+				reachZ = Math.max(reachZ, prefix.z[i] + prefix.d[i]);
+			}
+		}
+		double space;
+		if (problem.isGrowing()) {
+			space = prefix.maxExtent(problem.growAxis().key());
+		} else {
+			double binVolume = (double) problem.binW() * problem.binH() * (flat ? 1 : problem.binD());
+			space = open * binVolume + (double) reachX * reachY * (flat ? 1 : reachZ);
+		}
+		return space > 0 ? volume / space : 0;
+	}
+
+	private static int[] applyOrder(List<Integer> order, int count) {
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++)
+			result[i] = order.get(i);
+		return result;
+	}
+
+	static class Candidate {
+		final List<Integer> order;
+		final double estimate;
+		final Decoder decoder;
+		final int prefixLength;
+
+		Candidate(List<Integer> order, double estimate, Decoder decoder, int prefixLength) {
+			this.order = order;
+			this.estimate = estimate;
+			this.decoder = decoder;
+			this.prefixLength = prefixLength;
+		}
+	}
+}
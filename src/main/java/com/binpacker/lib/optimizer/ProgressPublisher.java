@@ -0,0 +1,150 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Runs an optimizer for a number of generations and publishes a report after
+ * each one.
+ *
+ * The run starts on its own thread when the first subscriber arrives; later
+ * subscribers see the reports from their subscription on. Every subscriber
+ * gets a small buffer and controls delivery through request(n). A report for
+ * a subscriber whose buffer is full is dropped for that subscriber, so a slow
+ * consumer never holds up the optimizer. The run stops after the generation
+ * in progress once every subscriber has cancelled, or when stop is called.
+ */
+public class ProgressPublisher implements Flow.Publisher<GenerationReport> {
+
+	private static final int BUFFER = 16;
+
+	private final Optimizer optimizer;
+	private final int generations;
+	private final SubmissionPublisher<GenerationReport> publisher = new SubmissionPublisher<>(
+			ForkJoinPool.commonPool(), BUFFER);
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final AtomicInteger subscribers = new AtomicInteger();
+	private final AtomicLong dropped = new AtomicLong();
+	private final CountDownLatch finished = new CountDownLatch(1);
+	private volatile boolean stopped = false;
+
+	ProgressPublisher(Optimizer optimizer, int generations) {
+		this.optimizer = optimizer;
+		this.generations = generations;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super GenerationReport> subscriber) {
+		subscribers.incrementAndGet();
+		publisher.subscribe(new TrackedSubscriber(subscriber));
+		if (started.compareAndSet(false, true)) {
+			Thread thread = new Thread(this::run, "optimizer-progress");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	// Stops the run after the generation in progress
+	public void stop() {
+		stopped = true;
+	}
+
+	// Waits for the run to stop, returns false on timeout
+	public boolean awaitStop(long timeout, TimeUnit unit) throws InterruptedException {
+		return finished.await(timeout, unit);
+	}
+
+	// Reports not delivered because a subscriber's buffer was full
+	public long getDroppedReports() {
+		return dropped.get();
+	}
+
+	private void run() {
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < generations && !stopped; i++) {
+				long generationStart = System.nanoTime();
+				PackingResult best = optimizer.executeNextGeneration();
+				long now = System.nanoTime();
+				GenerationReport report = new GenerationReport(optimizer.getGeneration(), optimizer.getBestScore(),
+						best, now - generationStart, now - start);
+				publisher.offer(report, (subscriber, item) -> {
+					dropped.incrementAndGet();
+					return false;
+				});
+			}
+			publisher.close();
+		} catch (RuntimeException e) {
+			publisher.closeExceptionally(e);
+		} finally {
+			optimizer.cancelPending();
+			finished.countDown();
+		}
+	}
+
+	// Called once per subscriber when it cancels or its stream ends
+	private void release() {
+		if (subscribers.decrementAndGet() == 0) {
+			stopped = true;
+		}
+	}
+
+	/**
+	 * Forwards to the real subscriber and notices when its subscription ends.
+	 */
+	private class TrackedSubscriber implements Flow.Subscriber<GenerationReport> {
+		private final Flow.Subscriber<? super GenerationReport> delegate;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		TrackedSubscriber(Flow.Subscriber<? super GenerationReport> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			delegate.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+					subscription.request(n);
+				}
+
+				@Override
+				public void cancel() {
+					subscription.cancel();
+					releaseOnce();
+				}
+			});
+		}
+
+		@Override
+		public void onNext(GenerationReport item) {
+			delegate.onNext(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			releaseOnce();
+			delegate.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			releaseOnce();
+			delegate.onComplete();
+		}
+
+		private void releaseOnce() {
+			if (released.compareAndSet(false, true)) {
+				release();
+			}
+		}
+	}
+}
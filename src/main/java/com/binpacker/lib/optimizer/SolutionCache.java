@@ -0,0 +1,200 @@
+package com.binpacker.lib.optimizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.Solver;
+
+/**
+ * Best known packing order per manifest, shared between optimizer runs.
+ *
+ * A manifest is identified by its bin, the sorted multiset of box sizes, the
+ * solver and the grow mode, so the same boxes listed in another order or
+ * with other ids hit the same entry. Solvers are told apart by their
+ * descriptor, so differently configured solvers get entries of their own.
+ * Orders are stored as canonical ranks, the position of each box in the
+ * sorted multiset, and mapped back to the indices of the caller's list on
+ * lookup; boxes of equal size are interchangeable.
+ *
+ * Entries live in memory with least recently used eviction. With a directory
+ * every improved entry is also written there and misses fall back to it, so
+ * answers survive restarts.
+ */
+public class SolutionCache {
+
+	public static class Entry {
+		public final int[] ranks;
+		public final double score;
+
+		Entry(int[] ranks, double score) {
+			this.ranks = ranks;
+			this.score = score;
+		}
+	}
+
+	private static final Comparator<float[]> SIZE_ORDER = (a, b) -> {
+		int cmp = Float.compare(a[0], b[0]);
+		if (cmp != 0) {
+			return cmp;
+		}
+		cmp = Float.compare(a[1], b[1]);
+		if (cmp != 0) {
+			return cmp;
+		}
+		return Float.compare(a[2], b[2]);
+	};
+
+	private final Map<String, Entry> entries;
+	private final Path directory;
+
+	public SolutionCache(int capacity) {
+		this(capacity, null);
+	}
+
+	public SolutionCache(int capacity, Path directory) {
+		this.directory = directory;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	// Canonical hash of a manifest
+	public static String key(List<Box> boxes, Bin bin, Solver solver, boolean growingBin, String growAxis) {
+		float[][] sizes = new float[boxes.size()][];
+		for (int i = 0; i < boxes.size(); i++) {
+			Box box = boxes.get(i);
+			sizes[i] = new float[] { box.size.x, box.size.y, box.size.z };
+		}
+		Arrays.sort(sizes, SIZE_ORDER);
+
+		ByteBuffer buffer = ByteBuffer.allocate(16 + sizes.length * 12);
+		buffer.putFloat(bin.w).putFloat(bin.h).putFloat(bin.d);
+		buffer.putInt(sizes.length);
+		for (float[] size : sizes) {
+			buffer.putFloat(size[0]).putFloat(size[1]).putFloat(size[2]);
+		}
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(buffer.array());
+			digest.update(solver.descriptor().getBytes(StandardCharsets.UTF_8));
+			digest.update((growingBin ? "grow:" + growAxis : "fixed").getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest.digest()) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	/**
+	 * Rank of every box in the canonical order, ties keep list order.
+	 */
+	public static int[] ranks(List<Box> boxes) {
+		Integer[] indices = new Integer[boxes.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		Arrays.sort(indices, (a, b) -> {
+			Box boxA = boxes.get(a);
+			Box boxB = boxes.get(b);
+			return SIZE_ORDER.compare(new float[] { boxA.size.x, boxA.size.y, boxA.size.z },
+					new float[] { boxB.size.x, boxB.size.y, boxB.size.z });
+		});
+		int[] ranks = new int[indices.length];
+		for (int rank = 0; rank < indices.length; rank++) {
+			ranks[indices[rank]] = rank;
+		}
+		return ranks;
+	}
+
+	public synchronized Entry get(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null && directory != null) {
+			entry = load(key);
+			if (entry != null) {
+				entries.put(key, entry);
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Stores the order if no entry exists or it beats the cached score.
+	 * Returns whether the entry was replaced.
+	 */
+	public synchronized boolean offer(String key, int[] ranks, double score, boolean lowerIsBetter) {
+		Entry current = get(key);
+		if (current != null && !(lowerIsBetter ? score < current.score : score > current.score)) {
+			return false;
+		}
+		Entry entry = new Entry(ranks.clone(), score);
+		entries.put(key, entry);
+		if (directory != null) {
+			store(key, entry);
+		}
+		return true;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private Entry load(String key) {
+		Path file = directory.resolve(key + ".sol");
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			double score = in.readDouble();
+			int[] ranks = new int[in.readInt()];
+			for (int i = 0; i < ranks.length; i++) {
+				ranks[i] = in.readInt();
+			}
+			return new Entry(ranks, score);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			System.err.println("Failed to read cached solution: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private void store(String key, Entry entry) {
+		Path file = directory.resolve(key + ".sol");
+		Path tmp = directory.resolve(key + ".sol.tmp");
+		try {
+			Files.createDirectories(directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.writeDouble(entry.score);
+				out.writeInt(entry.ranks.length);
+				for (int rank : entry.ranks) {
+					out.writeInt(rank);
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.err.println("Failed to write cached solution: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.binpacker.lib.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.BestFit3D;
+import com.binpacker.lib.solver.ExtremePoint3D;
+import com.binpacker.lib.solver.FirstFit2D;
+import com.binpacker.lib.solver.FirstFit3D;
+import com.binpacker.lib.solver.MOAB;
+import com.binpacker.lib.solver.MaxRects2D;
+import com.binpacker.lib.solver.Solver;
+import com.binpacker.lib.solver.StripSearch;
+
+/**
+ * A packing request in the line based text format of the packing service.
+ *
+ * <pre>
+ * bin 30 30 30
+ * solver firstfit3d
+ * coalesce        (optional, first fit solvers merge adjacent free spaces)
+ * grow x          (optional, packs into one bin growing along the axis)
+ * grow x strip    (optional, moab and extremepoint3d search the shortest length)
+ * budget 500      (optional, milliseconds of GA optimization)
+ * population 30   (optional, GA only)
+ * elite 3         (optional, GA only)
+ * mode steady     (optional, GA only, steady state instead of generations)
+ * box 1 4 5 6     (id w h d, one line per box)
+ * </pre>
+ *
+ * Blank lines and lines starting with # are ignored.
+ */
+public class Manifest {
+	public float binW;
+	public float binH;
+	public float binD;
+	public String solver = "firstfit3d";
+	public boolean coalesce = false;
+	public boolean growingBin = false;
+	public String growAxis = "x";
+	public boolean stripSearch = false;
+	public long budgetMillis = 0;
+	public int population = 30;
+	public int eliteCount = 3;
+	public boolean steadyState = false;
+	public List<Box> boxes = new ArrayList<>();
+
+	public static Manifest parse(String text) {
+		Manifest manifest = new Manifest();
+		boolean hasBin = false;
+		String[] lines = text.split("\\r?\\n");
+		for (int n = 0; n < lines.length; n++) {
+			String line = lines[n].trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] parts = line.split("\\s+");
+			try {
+				switch (parts[0].toLowerCase()) {
+					case "bin":
+						manifest.binW = Float.parseFloat(parts[1]);
+						manifest.binH = Float.parseFloat(parts[2]);
+						manifest.binD = parts.length > 3 ? Float.parseFloat(parts[3]) : 0;
+						hasBin = true;
+						break;
+					case "solver":
+						manifest.solver = parts[1].toLowerCase();
+						break;
+					case "coalesce":
+						manifest.coalesce = true;
+						break;
+					case "grow":
+						manifest.growingBin = true;
+						manifest.growAxis = parts[1].toLowerCase();
+						if (parts.length > 2) {
+							if (!parts[2].equalsIgnoreCase("strip")) {
+								throw new IllegalArgumentException(
+										"Unknown grow option on line " + (n + 1) + ": " + parts[2]);
+							}
+							manifest.stripSearch = true;
+						}
+						break;
+					case "budget":
+						manifest.budgetMillis = Long.parseLong(parts[1]);
+						break;
+					case "population":
+						manifest.population = Integer.parseInt(parts[1]);
+						break;
+					case "elite":
+						manifest.eliteCount = Integer.parseInt(parts[1]);
+						break;
+					case "mode":
+						switch (parts[1].toLowerCase()) {
+							case "steady":
+								manifest.steadyState = true;
+								break;
+							case "generations":
+								manifest.steadyState = false;
+								break;
+							default:
+								throw new IllegalArgumentException("Unknown mode on line " + (n + 1) + ": " + parts[1]);
+						}
+						break;
+					case "box":
+						manifest.boxes.add(new Box(Integer.parseInt(parts[1]), new Point3f(0, 0, 0),
+								new Point3f(Float.parseFloat(parts[2]), Float.parseFloat(parts[3]),
+										parts.length > 4 ? Float.parseFloat(parts[4]) : 0)));
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown keyword on line " + (n + 1) + ": " + parts[0]);
+				}
+			} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+				throw new IllegalArgumentException("Malformed line " + (n + 1) + ": " + line);
+			}
+		}
+		if (!hasBin) {
+			throw new IllegalArgumentException("Manifest has no bin line");
+		}
+		if (manifest.population < 1 || manifest.eliteCount < 1 || manifest.eliteCount > manifest.population) {
+			throw new IllegalArgumentException("Elite count must be between 1 and the population size");
+		}
+		Solver solver = createSolver(manifest.solver, false); // fail early on unknown names
+		if (manifest.stripSearch && !StripSearch.supports(solver)) {
+			throw new IllegalArgumentException("Strip search needs the extremepoint3d or moab solver");
+		}
+		return manifest;
+	}
+
+	public Bin createBin() {
+		return new Bin(0, binW, binH, binD);
+	}
+
+	public Solver createSolver() {
+		Solver created = createSolver(solver, coalesce);
+		return growingBin && stripSearch ? new StripSearch(created) : created;
+	}
+
+	static Solver createSolver(String name, boolean coalesce) {
+		switch (name) {
+			case "firstfit3d":
+				return new FirstFit3D(coalesce);
+			case "firstfit2d":
+				return new FirstFit2D(coalesce);
+			case "bestfit3d":
+				return new BestFit3D();
+			case "moab":
+				return new MOAB();
+			case "extremepoint3d":
+				return new ExtremePoint3D();
+			case "maxrects2d":
+				return new MaxRects2D();
+			default:
+				throw new IllegalArgumentException("Unknown solver: " + name);
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package com.binpacker.lib.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.optimizer.GAOptimizer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embeddable HTTP packing service bound to the loopback interface.
+ *
+ * POST /pack takes a Manifest and answers with CSV placements, one line per
+ * box: bin, id, x, y, z, w, h, d. A manifest with a budget runs the genetic
+ * optimizer for that many milliseconds, otherwise the solver packs the boxes
+ * in the given order. GET /stats reports request and batching counters.
+ *
+ * Small direct solves are micro-batched: the first one waits at most the
+ * batch window for others to arrive, and the collected batch is split into
+ * one task per pool thread instead of one task per request. Every request
+ * gets its own thread from a cached pool (the JDK 17 stand-in for a virtual
+ * thread per request). Direct solves run on one shared pool and optimizer
+ * runs on another, so a run that keeps its threads busy for the whole budget
+ * does not hold up the small requests.
+ */
+public class PackingServer {
+
+	// Direct solves up to this many boxes go through the batcher
+	private static final int SMALL_REQUEST = 2000;
+	// Pending connections, the system default resets bursts of clients
+	private static final int BACKLOG = 1024;
+
+	private final HttpServer server;
+	private final ForkJoinPool pool;
+	private final ForkJoinPool optimizerPool;
+	private final ExecutorService requestThreads = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "packing-request");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final BlockingQueue<Pending> batchQueue = new LinkedBlockingQueue<>();
+	private final Thread batcher;
+	private final long batchWindowNanos;
+	private final int maxBatch;
+	private volatile boolean running = false;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong batchedRequests = new AtomicLong();
+
+	public PackingServer(int port) throws IOException {
+		this(port, Runtime.getRuntime().availableProcessors(), 2000, 64);
+	}
+
+	/**
+	 * @param port              port to listen on, 0 picks a free one
+	 * @param parallelism       threads of the solve pool and of the optimizer pool
+	 * @param batchWindowMicros longest time a small request waits for others
+	 * @param maxBatch          most small requests handled as one batch
+	 */
+	public PackingServer(int port, int parallelism, long batchWindowMicros, int maxBatch) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+		this.pool = new ForkJoinPool(Math.max(1, parallelism));
+		this.optimizerPool = new ForkJoinPool(Math.max(1, parallelism));
+		this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, batchWindowMicros));
+		this.maxBatch = Math.max(1, maxBatch);
+		this.batcher = new Thread(this::batchLoop, "packing-batcher");
+		this.batcher.setDaemon(true);
+
+		server.setExecutor(requestThreads);
+		server.createContext("/pack", this::handlePack);
+		server.createContext("/stats", this::handleStats);
+	}
+
+	public void start() {
+		running = true;
+		batcher.start();
+		server.start();
+	}
+
+	public void stop() {
+		running = false;
+		server.stop(0);
+		batcher.interrupt();
+		requestThreads.shutdownNow();
+		pool.shutdownNow();
+		optimizerPool.shutdownNow();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handlePack(HttpExchange exchange) throws IOException {
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			respond(exchange, 405, "Use POST\n");
+			return;
+		}
+		requests.incrementAndGet();
+
+		Manifest manifest;
+		try {
+			manifest = Manifest.parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			failures.incrementAndGet();
+			respond(exchange, 400, e.getMessage() + "\n");
+			return;
+		}
+
+		try {
+			PackingResult result;
+			if (manifest.budgetMillis > 0) {
+				result = optimize(manifest);
+			} else if (manifest.boxes.size() <= SMALL_REQUEST) {
+				Pending pending = new Pending(manifest);
+				batchQueue.add(pending);
+				result = pending.result.get();
+			} else {
+				result = pool.submit(() -> solve(manifest)).get();
+			}
+			respond(exchange, 200, toCsv(result));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failures.incrementAndGet();
+			respond(exchange, 503, "Interrupted\n");
+		} catch (ExecutionException | RuntimeException e) {
+			failures.incrementAndGet();
+			Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+			respond(exchange, 500, "Packing failed: " + cause + "\n");
+		}
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		String stats = "requests " + requests.get() + "\n"
+				+ "failures " + failures.get() + "\n"
+				+ "batches " + batches.get() + "\n"
+				+ "batched_requests " + batchedRequests.get() + "\n"
+				+ "queued " + batchQueue.size() + "\n";
+		respond(exchange, 200, stats);
+	}
+
+	private PackingResult solve(Manifest manifest) {
+		return manifest.createSolver().pack(manifest.boxes, manifest.createBin(), manifest.growingBin,
+				manifest.growAxis);
+	}
+
+	// Runs the optimizer on the optimizer pool until the budget is spent
+	private PackingResult optimize(Manifest manifest) {
+		GAOptimizer optimizer = new GAOptimizer();
+		optimizer.setExecutor(optimizerPool);
+		optimizer.initialize(manifest.createSolver(), manifest.boxes, manifest.createBin(), manifest.growingBin,
+				manifest.growAxis, manifest.population, manifest.eliteCount);
+		if (manifest.steadyState) {
+			return optimizer.runSteadyState(Long.MAX_VALUE, manifest.budgetMillis);
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(manifest.budgetMillis);
+		PackingResult best;
+		do {
+			best = optimizer.executeNextGeneration();
+		} while (System.nanoTime() < deadline);
+		optimizer.cancelPending();
+		return best;
+	}
+
+	private void batchLoop() {
+		List<Pending> batch = new ArrayList<>();
+		while (running) {
+			try {
+				batch.add(batchQueue.take());
+				long deadline = System.nanoTime() + batchWindowNanos;
+				while (batch.size() < maxBatch) {
+					Pending next = batchQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				for (Pending pending : batch) {
+					pending.result.cancel(false);
+				}
+				return;
+			}
+
+			batches.incrementAndGet();
+			batchedRequests.addAndGet(batch.size());
+			dispatch(batch);
+			batch = new ArrayList<>();
+		}
+	}
+
+	// Splits a batch into one slice per pool thread
+	private void dispatch(List<Pending> batch) {
+		int slices = Math.min(pool.getParallelism(), batch.size());
+		for (int s = 0; s < slices; s++) {
+			List<Pending> slice = batch.subList(batch.size() * s / slices, batch.size() * (s + 1) / slices);
+			pool.execute(() -> {
+				for (Pending pending : slice) {
+					try {
+						pending.result.complete(solve(pending.manifest));
+					} catch (RuntimeException e) {
+						pending.result.completeExceptionally(e);
+					}
+				}
+			});
+		}
+	}
+
+	private static String toCsv(PackingResult result) {
+		StringBuilder csv = new StringBuilder(result.size * 40 + 32);
+		csv.append("bin,id,x,y,z,w,h,d\n");
+		for (int i = 0; i < result.size; i++) {
+			csv.append(result.bins[i]).append(',')
+					.append(result.ids[i]).append(',')
+					.append(result.x[i]).append(',')
+					.append(result.y[i]).append(',')
+					.append(result.z[i]).append(',')
+					.append(result.w[i]).append(',')
+					.append(result.h[i]).append(',')
+					.append(result.d[i]).append('\n');
+		}
+		return csv.toString();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static class Pending {
+		final Manifest manifest;
+		final CompletableFuture<PackingResult> result = new CompletableFuture<>();
+
+		Pending(Manifest manifest) {
+			this.manifest = manifest;
+		}
+	}
+}
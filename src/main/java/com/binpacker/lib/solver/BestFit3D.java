@@ -1,150 +1,211 @@
 package com.binpacker.lib.solver;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-import com.binpacker.lib.common.Box;
 import com.binpacker.lib.common.Bin;
-import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.common.Space;
 
-public class BestFit3D implements Solver {
+public class BestFit3D implements IncrementalSolver {
+
+	// Free spaces scanned per box before the search is split across the pool
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 50000;
+	// Smallest slice of free spaces a single fork-join task scans
+	private static final int PARALLEL_SLICE = 4096;
+
+	private final int parallelThreshold;
+	private final ForkJoinPool pool;
+	private final int slice;
+
+	public BestFit3D() {
+		this(DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	public BestFit3D(int parallelThreshold) {
+		this(parallelThreshold, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param parallelThreshold number of free spaces across all active bins
+	 *                          above which the best position search for a box
+	 *                          is split across the pool. Integer.MAX_VALUE
+	 *                          keeps every solve sequential.
+	 */
+	public BestFit3D(int parallelThreshold, ForkJoinPool pool) {
+		this(parallelThreshold, pool, PARALLEL_SLICE);
+	}
+
+	// A smaller slice lets tests split searches over a few spaces
+	BestFit3D(int parallelThreshold, ForkJoinPool pool, int slice) {
+		this.parallelThreshold = parallelThreshold;
+		this.pool = pool;
+		this.slice = slice;
+	}
 
 	@Override
-	public List<List<Box>> solve(List<Box> boxes, Bin binTemplate, boolean growingBin, String growAxis) {
-		List<Bin> activeBins = new ArrayList<>();
-		List<List<Box>> result = new ArrayList<>();
-
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					binTemplate.w = Integer.MAX_VALUE;
-					break;
-				case "y":
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-				case "z":
-					binTemplate.d = Integer.MAX_VALUE;
-					break;
-				default:
-					System.err.println("Invalid growAxis specified: " + growAxis);
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-			}
+	public PackingResult pack(PackingProblem problem, int[] order) {
+		SolverWorkspace workspace = SolverWorkspace.acquire();
+		try {
+			return pack(problem, order, workspace).copy();
+		} finally {
+			workspace.release();
+		}
+	}
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order, SolverWorkspace workspace) {
+		Decoder decoder = decoder(problem, order.length, workspace);
+		for (int index : order) {
+			decoder.add(index);
 		}
-		activeBins.add(new Bin(0, binTemplate.w, binTemplate.h, binTemplate.d));
+		return decoder.result();
+	}
 
-		for (Box box : boxes) {
-			float bestScore = Float.MAX_VALUE;
-			Bin bestBin = null;
-			int bestSpaceIndex = -1;
-			Box bestBox = null;
+	@Override
+	public Decoder decoder(PackingProblem problem, int capacity) {
+		return new BestFitDecoder(problem, capacity, null);
+	}
 
+	@Override
+	public Decoder decoder(PackingProblem problem, int capacity, SolverWorkspace workspace) {
+		return new BestFitDecoder(problem, capacity, workspace);
+	}
+
+	private class BestFitDecoder extends LoggedDecoder {
+		private final float[] dims = new float[3];
+		private Candidate best = new Candidate();
+
+		BestFitDecoder(PackingProblem problem, int capacity, SolverWorkspace workspace) {
+			super(problem, problem.packW(), problem.packH(), problem.packD(), capacity, workspace);
+			openBin();
+		}
+
+		@Override
+		protected void place(int index) {
+			int spaceCount = 0;
 			for (Bin bin : activeBins) {
-				for (int i = 0; i < bin.freeSpaces.size(); i++) {
-					Space space = bin.freeSpaces.get(i);
-					Box fittedBox = findFit(box, space);
-					if (fittedBox != null) {
-						float score = calculateScore(fittedBox, space);
-						if (score < bestScore) {
-							bestScore = score;
-							bestBin = bin;
-							bestSpaceIndex = i;
-							bestBox = fittedBox;
-						}
-					}
+				spaceCount += bin.freeSpaces.size();
+			}
+
+			if (spaceCount >= parallelThreshold) {
+				best = pool.invoke(new SearchTask(problem, index, activeBins, spaceOffsets(activeBins), 0, spaceCount));
+			} else {
+				best.reset();
+				for (int b = 0; b < activeBins.size(); b++) {
+					searchBin(problem, index, activeBins.get(b), b, 0, activeBins.get(b).freeSpaces.size(), dims, best);
 				}
 			}
 
-			if (bestBin != null) {
-				placeBox(bestBox, bestBin, bestSpaceIndex);
+			if (best.bin >= 0) {
+				placeBox(problem.id(index), best.dims, activeBins.get(best.bin), best.space);
 			} else {
-				Bin newBin = new Bin(activeBins.size(), binTemplate.w, binTemplate.h, binTemplate.d);
-				activeBins.add(newBin);
-				Box fittedBox = findFit(box, newBin.freeSpaces.get(0));
-				if (fittedBox != null) {
-					placeBox(fittedBox, newBin, 0);
+				Bin newBin = openBin();
+				if (findFit(problem, index, newBin.freeSpaces.get(0), dims)) {
+					placeBox(problem.id(index), dims, newBin, 0);
 				} else {
-					System.err.println("Box too big for bin: " + box);
+					System.err.println("Box too big for bin: " + problem.box(index));
 				}
 			}
 		}
 
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					float maxX = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxX = Math.max(maxX, placedBox.position.x + placedBox.size.x);
-					}
-					activeBins.get(0).w = maxX;
-					break;
-				case "y":
-					float maxY = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxY = Math.max(maxY, placedBox.position.y + placedBox.size.y);
-					}
-					activeBins.get(0).h = maxY;
-					break;
-				case "z":
-					float maxZ = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxZ = Math.max(maxZ, placedBox.position.z + placedBox.size.z);
-					}
-					activeBins.get(0).d = maxZ;
-					break;
-				default:
-					System.err.println("Invalid growAxis specified for final bin sizing: " + growAxis);
-					break;
-			}
+		private void placeBox(int id, float[] dims, Bin bin, int spaceIndex) {
+			Space space = removeSpace(bin, spaceIndex);
+
+			result.add(id, bin.index, space.x, space.y, space.z, dims[0], dims[1], dims[2]);
+			addVolume(bin, dims[0] * dims[1] * dims[2]);
+
+			// add empty spaces that are left after placing the box, only
+			// non-empty remainders are allocated
+			float rightW = space.w - dims[0];
+			float topH = space.h - dims[1];
+			float frontD = space.d - dims[2];
+
+			if (rightW > 0 && space.h > 0 && space.d > 0)
+				addSpace(bin, newSpace(space.x + dims[0], space.y, space.z, rightW, space.h, space.d));
+			if (dims[0] > 0 && topH > 0 && space.d > 0)
+				addSpace(bin, newSpace(space.x, space.y + dims[1], space.z, dims[0], topH, space.d));
+			if (dims[0] > 0 && dims[1] > 0 && frontD > 0)
+				addSpace(bin, newSpace(space.x, space.y, space.z + dims[2], dims[0], dims[1], frontD));
+			discard(space);
 		}
+	}
 
-		for (Bin bin : activeBins) {
-			result.add(bin.boxes);
+	// Scans free spaces [from, to) of a bin, keeping the first lowest score
+	private void searchBin(PackingProblem problem, int index, Bin bin, int binPosition, int from, int to, float[] dims, Candidate best) {
+		for (int i = from; i < to; i++) {
+			Space space = bin.freeSpaces.get(i);
+			if (findFit(problem, index, space, dims)) {
+				float score = calculateScore(dims, space);
+				if (score < best.score) {
+					best.score = score;
+					best.bin = binPosition;
+					best.space = i;
+					System.arraycopy(dims, 0, best.dims, 0, 3);
+				}
+			}
 		}
+	}
 
-		return result;
+	private int[] spaceOffsets(List<Bin> activeBins) {
+		int[] offsets = new int[activeBins.size() + 1];
+		for (int b = 0; b < activeBins.size(); b++) {
+			offsets[b + 1] = offsets[b] + activeBins.get(b).freeSpaces.size();
+		}
+		return offsets;
 	}
 
-	private Box findFit(Box box, Space space) {
-		// Check all 6 orientations (permutations of x, y, z)
+	private boolean findFit(PackingProblem problem, int index, Space space, float[] dims) {
+		float sx = problem.sizeX(index), sy = problem.sizeY(index), sz = problem.sizeZ(index);
+
+		// Check all 6 orientations (permutations of x, y, z), the fitting one is
+		// written to dims as (w, h, d)
 
 		// 1. (x, y, z)
-		if (box.size.x <= space.w && box.size.y <= space.h && box.size.z <= space.d) {
-			return box;
+		if (sx <= space.w && sy <= space.h && sz <= space.d) {
+			return setDims(dims, sx, sy, sz);
 		}
 
 		// 2. (x, z, y)
-		if (box.size.x <= space.w && box.size.z <= space.h && box.size.y <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.x, box.size.z, box.size.y));
+		if (sx <= space.w && sz <= space.h && sy <= space.d) {
+			return setDims(dims, sx, sz, sy);
 		}
 
 		// 3. (y, x, z)
-		if (box.size.y <= space.w && box.size.x <= space.h && box.size.z <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.x, box.size.z));
+		if (sy <= space.w && sx <= space.h && sz <= space.d) {
+			return setDims(dims, sy, sx, sz);
 		}
 
 		// 4. (y, z, x)
-		if (box.size.y <= space.w && box.size.z <= space.h && box.size.x <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.z, box.size.x));
+		if (sy <= space.w && sz <= space.h && sx <= space.d) {
+			return setDims(dims, sy, sz, sx);
 		}
 
 		// 5. (z, x, y)
-		if (box.size.z <= space.w && box.size.x <= space.h && box.size.y <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.x, box.size.y));
+		if (sz <= space.w && sx <= space.h && sy <= space.d) {
+			return setDims(dims, sz, sx, sy);
 		}
 
 		// 6. (z, y, x)
-		if (box.size.z <= space.w && box.size.y <= space.h && box.size.x <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.y, box.size.x));
+		if (sz <= space.w && sy <= space.h && sx <= space.d) {
+			return setDims(dims, sz, sy, sx);
 		}
 
-		return null;
+		return false;
+	}
+
+	private boolean setDims(float[] dims, float w, float h, float d) {
+		dims[0] = w;
+		dims[1] = h;
+		dims[2] = d;
+		return true;
 	}
 
-	private float calculateScore(Box box, Space space) {
+	private float calculateScore(float[] dims, Space space) {
 		float spaceVol = space.w * space.h * space.d;
-		float boxVol = box.size.x * box.size.y * box.size.z;
+		float boxVol = dims[0] * dims[1] * dims[2];
 		float wastedSpaceScore = spaceVol - boxVol;
 
 		// Add a component for distance from origin (smaller x, y, z is better)
@@ -155,32 +216,85 @@ public class BestFit3D implements Solver {
 
 	}
 
-	private void placeBox(Box box, Bin bin, int spaceIndex) {
-		Space space = bin.freeSpaces.get(spaceIndex);
+	private static class Candidate {
+		float score;
+		int bin;
+		int space;
+		final float[] dims = new float[3];
 
-		Box placedBox = new Box(
-				box.id,
-				new Point3f(space.x, space.y, space.z),
-				new Point3f(box.size.x, box.size.y, box.size.z));
-		bin.boxes.add(placedBox);
+		Candidate() {
+			reset();
+		}
+
+		void reset() {
+			score = Float.MAX_VALUE;
+			bin = -1;
+			space = -1;
+		}
+	}
 
-		bin.freeSpaces.remove(spaceIndex);
+	/**
+	 * Searches a range of the free spaces of all active bins, numbered in the
+	 * same bin-then-space order the sequential scan uses. When merging, the
+	 * right half only wins with a strictly lower score, so ties resolve to the
+	 * earliest space exactly like the sequential version.
+	 */
+	@SuppressWarnings("serial")
+	private class SearchTask extends RecursiveTask<Candidate> {
+		private final PackingProblem problem;
+		private final int index;
+		private final List<Bin> activeBins;
+		private final int[] offsets;
+		private final int from;
+		private final int to;
 
-		// add empty spaces that are left after placing the box
-		Space right = new Space(space.x + box.size.x, space.y, space.z,
-				space.w - box.size.x, space.h, space.d);
+		SearchTask(PackingProblem problem, int index, List<Bin> activeBins, int[] offsets, int from, int to) {
+			this.problem = problem;
+			this.index = index;
+			this.activeBins = activeBins;
+			this.offsets = offsets;
+			this.from = from;
+			this.to = to;
+		}
 
-		Space top = new Space(space.x, space.y + box.size.y, space.z,
-				box.size.x, space.h - box.size.y, space.d);
+		@Override
+		protected Candidate compute() {
+			if (to - from <= slice) {
+				Candidate best = new Candidate();
+				float[] dims = new float[3];
+				int b = binAt(from);
+				int position = from;
+				while (position < to) {
+					int binEnd = Math.min(to, offsets[b + 1]);
+					searchBin(problem, index, activeBins.get(b), b, position - offsets[b], binEnd - offsets[b], dims, best);
+					position = binEnd;
+					b++;
+				}
+				return best;
+			}
 
-		Space front = new Space(space.x, space.y, space.z + box.size.z,
-				box.size.x, box.size.y, space.d - box.size.z);
+			int mid = (from + to) >>> 1;
+			SearchTask left = new SearchTask(problem, index, activeBins, offsets, from, mid);
+			SearchTask right = new SearchTask(problem, index, activeBins, offsets, mid, to);
+			left.fork();
+			Candidate rightBest = right.compute();
+			Candidate leftBest = left.join();
+			return rightBest.score < leftBest.score ? rightBest : leftBest;
+		}
 
-		if (right.w > 0 && right.h > 0 && right.d > 0)
-			bin.freeSpaces.add(right);
-		if (top.w > 0 && top.h > 0 && top.d > 0)
-			bin.freeSpaces.add(top);
-		if (front.w > 0 && front.h > 0 && front.d > 0)
-			bin.freeSpaces.add(front);
+		// Index of the bin holding the given global space position
+		private int binAt(int position) {
+			int lo = 0;
+			int hi = activeBins.size() - 1;
+			while (lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if (offsets[mid] <= position) {
+					lo = mid;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			return lo;
+		}
 	}
 }
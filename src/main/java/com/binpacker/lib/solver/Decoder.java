@@ -0,0 +1,21 @@
+package com.binpacker.lib.solver;
+
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Packs an order one box at a time and can roll back to any earlier prefix,
+ * so an order that only differs from the decoded one after position k is
+ * evaluated by re-packing from k onward.
+ */
+public interface Decoder {
+	// Packs the box with the given index in the problem next
+	void add(int index);
+
+	// Rolls the packing back to the state right after the first count boxes
+	void truncate(int count);
+
+	// Number of boxes added so far
+	int size();
+
+	PackingResult result();
+}
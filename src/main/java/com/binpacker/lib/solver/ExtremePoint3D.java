@@ -0,0 +1,369 @@
+package com.binpacker.lib.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Extreme point placement (Crainic, Perboli and Tadei).
+ *
+ * Instead of splitting free space into guillotine cuts, every bin keeps a set
+ * of candidate corner points. Each placed box adds the points obtained by
+ * projecting its three outer corners back along the other axes until they
+ * hit another box or a wall. A box goes to the first point, in order of
+ * distance from the origin, where one of its orientations stays inside the
+ * bin and overlaps nothing. Overlap and projection queries go through a
+ * uniform grid with cells about as long as an average box edge, so they only
+ * look at nearby boxes even when some boxes span the bin.
+ *
+ * A point remembers the smallest box that fit it in no orientation, and a
+ * bin the smallest box that fit none of its points since its last
+ * placement. Free space only shrinks, so a box at least as large on every
+ * sorted dimension skips them without changing the packing.
+ */
+public class ExtremePoint3D implements Solver {
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order) {
+		List<PointBin> activeBins = new ArrayList<>();
+		PackingResult result = new PackingResult(order.length);
+		float[] dims = new float[3];
+		float binW = problem.packW(), binH = problem.packH(), binD = problem.packD();
+		int grow = problem.isGrowing() ? problem.growAxis().ordinal() : -1;
+
+		// grid cells as long as the mean box edge, sizing them by the longest
+		// one puts every box of a bin in the same cell once a few rods show up
+		double edges = 0;
+		float minDim = Float.MAX_VALUE;
+		for (int index : order) {
+			edges += problem.large(index) + problem.middle(index) + problem.small(index);
+			minDim = Math.min(minDim, problem.small(index));
+		}
+		float cellSize = (float) Math.max(1, edges / (3.0 * Math.max(1, order.length)));
+
+		activeBins.add(new PointBin(new Bin(result.addBin(), binW, binH, binD), grow, cellSize, minDim, result));
+
+		for (int index : order) {
+			double volume = problem.volume(index);
+			boolean placed = false;
+			for (PointBin bin : activeBins) {
+				if (bin.remainingVolume() < volume || bin.rejects(problem, index)) {
+					continue;
+				}
+				if (bin.place(problem, index, dims)) {
+					placed = true;
+					break;
+				}
+			}
+
+			if (!problem.isGrowing() && !placed) {
+				PointBin newBin = new PointBin(new Bin(result.addBin(), binW, binH, binD), grow, cellSize, minDim,
+						result);
+				activeBins.add(newBin);
+				if (!newBin.place(problem, index, dims)) {
+					System.err.println("Box too big for bin: " + problem.box(index));
+				}
+			}
+		}
+
+		if (problem.isGrowing()) {
+			Bin bin = activeBins.get(0).bin;
+			switch (problem.growAxis()) {
+				case X:
+					bin.w = result.maxExtent("x");
+					break;
+				case Y:
+					bin.h = result.maxExtent("y");
+					break;
+				default:
+					bin.d = result.maxExtent("z");
+					break;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Candidate points of one bin, kept sorted by distance from the origin and
+	 * then by x, y, z so the scan order is deterministic.
+	 */
+	static class PointSet {
+		float[] x = new float[16];
+		float[] y = new float[16];
+		float[] z = new float[16];
+		// sorted dimensions of the smallest box that did not fit the point
+		float[] large = new float[16];
+		float[] middle = new float[16];
+		float[] small = new float[16];
+		int size = 0;
+
+		void add(float px, float py, float pz) {
+			int pos = search(px, py, pz);
+			if (pos >= 0) {
+				return; // already present
+			}
+			pos = -pos - 1;
+			if (size == x.length) {
+				x = Arrays.copyOf(x, size * 2);
+				y = Arrays.copyOf(y, size * 2);
+				z = Arrays.copyOf(z, size * 2);
+				large = Arrays.copyOf(large, size * 2);
+				middle = Arrays.copyOf(middle, size * 2);
+				small = Arrays.copyOf(small, size * 2);
+			}
+			System.arraycopy(x, pos, x, pos + 1, size - pos);
+			System.arraycopy(y, pos, y, pos + 1, size - pos);
+			System.arraycopy(z, pos, z, pos + 1, size - pos);
+			System.arraycopy(large, pos, large, pos + 1, size - pos);
+			System.arraycopy(middle, pos, middle, pos + 1, size - pos);
+			System.arraycopy(small, pos, small, pos + 1, size - pos);
+			x[pos] = px;
+			y[pos] = py;
+			z[pos] = pz;
+			large[pos] = Float.MAX_VALUE;
+			middle[pos] = Float.MAX_VALUE;
+			small[pos] = Float.MAX_VALUE;
+			size++;
+		}
+
+		void remove(int i) {
+			System.arraycopy(x, i + 1, x, i, size - i - 1);
+			System.arraycopy(y, i + 1, y, i, size - i - 1);
+			System.arraycopy(z, i + 1, z, i, size - i - 1);
+			System.arraycopy(large, i + 1, large, i, size - i - 1);
+			System.arraycopy(middle, i + 1, middle, i, size - i - 1);
+			System.arraycopy(small, i + 1, small, i, size - i - 1);
+			size--;
+		}
+
+		// Whether a box at least as large as one that did not fit point i
+		boolean rejects(int i, float l, float m, float s) {
+			return l >= large[i] && m >= middle[i] && s >= small[i];
+		}
+
+		// Keeps the smaller of the recorded box and one that did not fit point i
+		void reject(int i, float l, float m, float s) {
+			if ((double) l * m * s < (double) large[i] * middle[i] * small[i]) {
+				large[i] = l;
+				middle[i] = m;
+				small[i] = s;
+			}
+		}
+
+		// Drops every point strictly covered by the given box, keeping order
+		void removeInside(float bx, float by, float bz, float bw, float bh, float bd) {
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				boolean inside = x[i] >= bx && x[i] < bx + bw &&
+						y[i] >= by && y[i] < by + bh &&
+						z[i] >= bz && z[i] < bz + bd;
+				if (!inside) {
+					x[kept] = x[i];
+					y[kept] = y[i];
+					z[kept] = z[i];
+					large[kept] = large[i];
+					middle[kept] = middle[i];
+					small[kept] = small[i];
+					kept++;
+				}
+			}
+			size = kept;
+		}
+
+		private int search(float px, float py, float pz) {
+			int lo = 0;
+			int hi = size - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int cmp = compare(x[mid], y[mid], z[mid], px, py, pz);
+				if (cmp < 0) {
+					lo = mid + 1;
+				} else if (cmp > 0) {
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(lo + 1);
+		}
+
+		private static int compare(float ax, float ay, float az, float bx, float by, float bz) {
+			int cmp = Float.compare(ax + ay + az, bx + by + bz);
+			if (cmp != 0) {
+				return cmp;
+			}
+			cmp = Float.compare(ax, bx);
+			if (cmp != 0) {
+				return cmp;
+			}
+			cmp = Float.compare(ay, by);
+			if (cmp != 0) {
+				return cmp;
+			}
+			return Float.compare(az, bz);
+		}
+	}
+
+	/**
+	 * A bin together with its extreme points and placement grid.
+	 */
+	static class PointBin {
+		final Bin bin;
+		private final float minDim;
+		private final PackingResult result;
+		private final PointSet points = new PointSet();
+		private final PlacementGrid grid;
+		private final float[] lo = new float[3];
+		private final float[] hi = new float[3];
+		private final float[] corner = new float[3];
+		// sorted dimensions of the smallest box that fit no point since the
+		// last placement
+		private float rejectedLarge = Float.MAX_VALUE;
+		private float rejectedMiddle = Float.MAX_VALUE;
+		private float rejectedSmall = Float.MAX_VALUE;
+
+		PointBin(Bin bin, int grow, float cellSize, float minDim, PackingResult result) {
+			this.bin = bin;
+			this.minDim = minDim;
+			this.result = result;
+			this.grid = new PlacementGrid(bin, grow, cellSize);
+			points.add(0, 0, 0);
+		}
+
+		double remainingVolume() {
+			return (double) bin.w * bin.h * bin.d - bin.usedVolume;
+		}
+
+		boolean rejects(PackingProblem problem, int index) {
+			return problem.large(index) >= rejectedLarge && problem.middle(index) >= rejectedMiddle &&
+					problem.small(index) >= rejectedSmall;
+		}
+
+		boolean place(PackingProblem problem, int index, float[] dims) {
+			float l = problem.large(index), m = problem.middle(index), s = problem.small(index);
+			for (int p = 0; p < points.size; p++) {
+				if (points.rejects(p, l, m, s)) {
+					continue;
+				}
+				float px = points.x[p];
+				float py = points.y[p];
+				float pz = points.z[p];
+
+				// every box placed at this point covers a cube of the smallest
+				// dimension in the manifest, if that cube is blocked the point is
+				// dead for good
+				dims[0] = minDim;
+				dims[1] = minDim;
+				dims[2] = minDim;
+				if (!fits(px, py, pz, dims)) {
+					points.remove(p--);
+					continue;
+				}
+
+				for (int orientation = 0; orientation < 6; orientation++) {
+					orient(problem, index, orientation, dims);
+					if (fits(px, py, pz, dims)) {
+						commit(problem.id(index), px, py, pz, dims);
+						return true;
+					}
+				}
+				points.reject(p, l, m, s);
+			}
+			if ((double) l * m * s < (double) rejectedLarge * rejectedMiddle * rejectedSmall) {
+				rejectedLarge = l;
+				rejectedMiddle = m;
+				rejectedSmall = s;
+			}
+			return false;
+		}
+
+		private boolean fits(float px, float py, float pz, float[] dims) {
+			if (px + dims[0] > bin.w || py + dims[1] > bin.h || pz + dims[2] > bin.d) {
+				return false;
+			}
+			lo[0] = px;
+			lo[1] = py;
+			lo[2] = pz;
+			hi[0] = px + dims[0];
+			hi[1] = py + dims[1];
+			hi[2] = pz + dims[2];
+			return !grid.overlaps(result, lo, hi);
+		}
+
+		private void commit(int id, float px, float py, float pz, float[] dims) {
+			int index = result.add(id, bin.index, px, py, pz, dims[0], dims[1], dims[2]);
+			bin.usedVolume += dims[0] * dims[1] * dims[2];
+			lo[0] = px;
+			lo[1] = py;
+			lo[2] = pz;
+			hi[0] = px + dims[0];
+			hi[1] = py + dims[1];
+			hi[2] = pz + dims[2];
+			grid.add(index, lo, hi);
+			// new points may fit boxes the bin rejected so far
+			rejectedLarge = Float.MAX_VALUE;
+			rejectedMiddle = Float.MAX_VALUE;
+			rejectedSmall = Float.MAX_VALUE;
+			points.removeInside(px, py, pz, dims[0], dims[1], dims[2]);
+
+			// project each outer corner back along the two other axes
+			for (int axis = 0; axis < 3; axis++) {
+				for (int along = 0; along < 3; along++) {
+					if (along == axis) {
+						continue;
+					}
+					corner[0] = px;
+					corner[1] = py;
+					corner[2] = pz;
+					corner[axis] += dims[axis];
+					corner[along] = grid.project(result, corner, along);
+					if (corner[0] < bin.w && corner[1] < bin.h && corner[2] < bin.d) {
+						points.add(corner[0], corner[1], corner[2]);
+					}
+				}
+			}
+		}
+
+		// Same orientation order as the findFit checks of the other solvers
+		private static void orient(PackingProblem problem, int index, int orientation, float[] dims) {
+			float sx = problem.sizeX(index), sy = problem.sizeY(index), sz = problem.sizeZ(index);
+			switch (orientation) {
+				case 0:
+					dims[0] = sx;
+					dims[1] = sy;
+					dims[2] = sz;
+					break;
+				case 1:
+					dims[0] = sx;
+					dims[1] = sz;
+					dims[2] = sy;
+					break;
+				case 2:
+					dims[0] = sy;
+					dims[1] = sx;
+					dims[2] = sz;
+					break;
+				case 3:
+					dims[0] = sy;
+					dims[1] = sz;
+					dims[2] = sx;
+					break;
+				case 4:
+					dims[0] = sz;
+					dims[1] = sx;
+					dims[2] = sy;
+					break;
+				default:
+					dims[0] = sz;
+					dims[1] = sy;
+					dims[2] = sx;
+					break;
+			}
+		}
+	}
+}
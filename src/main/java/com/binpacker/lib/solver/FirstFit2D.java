@@ -1,149 +1,174 @@
 package com.binpacker.lib.solver;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import com.binpacker.lib.common.Box;
 import com.binpacker.lib.common.Bin;
-import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingProblem.GrowAxis;
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.common.Space;
 
-public class FirstFit2D implements Solver {
+public class FirstFit2D implements IncrementalSolver {
+
+	// Merge free spaces that share a whole face when a box fits none of them
+	private final boolean coalesce;
+
+	public FirstFit2D() {
+		this(false);
+	}
+
+	public FirstFit2D(boolean coalesce) {
+		this.coalesce = coalesce;
+	}
+
+	public boolean isCoalescing() {
+		return coalesce;
+	}
 
 	@Override
-	public List<List<Box>> solve(List<Box> boxes, Bin binTemplate, boolean growingBin, String growAxis) {
-		List<Bin> activeBins = new ArrayList<>();
-		List<List<Box>> result = new ArrayList<>();
-
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					binTemplate.w = Integer.MAX_VALUE;
-					break;
-				case "y":
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-				default:
-					System.err.println("Invalid growAxis specified: " + growAxis);
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-			}
+	public String descriptor() {
+		return coalesce ? getClass().getName() + "(coalesce)" : getClass().getName();
+	}
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order) {
+		SolverWorkspace workspace = SolverWorkspace.acquire();
+		try {
+			return pack(problem, order, workspace).copy();
+		} finally {
+			workspace.release();
 		}
-		activeBins.add(new Bin(0, binTemplate.w, binTemplate.h));
-
-		for (int b = 0; b < boxes.size(); b++) {
-			Box box = boxes.get(b);
-			boolean placed = false;
-			for (Bin bin : activeBins) {
-				for (int i = 0; i < bin.freeSpaces.size(); i++) {
-					Space space = bin.freeSpaces.get(i);
-					Box fittedBox = findFit(box, space);
-					if (fittedBox != null) {
-						placeBox(fittedBox, bin, i);
-						placed = true;
-						break;
+	}
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order, SolverWorkspace workspace) {
+		Decoder decoder = decoder(problem, order.length, workspace);
+		for (int index : order) {
+			decoder.add(index);
+		}
+		return decoder.result();
+	}
+
+	@Override
+	public Decoder decoder(PackingProblem problem, int capacity) {
+		return new FirstFit2DDecoder(problem, capacity, null);
+	}
+
+	@Override
+	public Decoder decoder(PackingProblem problem, int capacity, SolverWorkspace workspace) {
+		return new FirstFit2DDecoder(problem, capacity, workspace);
+	}
+
+	// Flat bins cannot grow along z, such problems grow along y
+	private static GrowAxis planarGrowAxis(PackingProblem problem) {
+		GrowAxis axis = problem.growAxis();
+		if (axis == GrowAxis.Z) {
+			System.err.println("Invalid growAxis specified: z");
+			return GrowAxis.Y;
+		}
+		return axis;
+	}
+
+	private class FirstFit2DDecoder extends LoggedDecoder {
+		private final float[] dims = new float[3];
+
+		FirstFit2DDecoder(PackingProblem problem, int capacity, SolverWorkspace workspace) {
+			this(problem, planarGrowAxis(problem), capacity, workspace);
+		}
+
+		private FirstFit2DDecoder(PackingProblem problem, GrowAxis axis, int capacity, SolverWorkspace workspace) {
+			// depth 0, the bins are flat
+			super(problem, axis == GrowAxis.X ? Integer.MAX_VALUE : problem.binW(),
+					axis == GrowAxis.Y ? Integer.MAX_VALUE : problem.binH(), 0, capacity, workspace);
+			openBin();
+		}
+
+		@Override
+		protected void place(int index) {
+			// coalescing free spaces once before giving up
+			do {
+				for (Bin bin : activeBins) {
+					for (int i = 0; i < bin.freeSpaces.size(); i++) {
+						Space space = bin.freeSpaces.get(i);
+						if (findFit(problem, index, space, dims)) {
+							placeBox(problem.id(index), dims, bin, i);
+							return;
+						}
 					}
 				}
-				if (placed)
-					break;
-			}
+			} while (coalesce && coalesce());
 
-			if (!growingBin && !placed) {
-				Bin newBin = new Bin(activeBins.size(), binTemplate.w, binTemplate.h);
-				activeBins.add(newBin);
-				Box fittedBox = findFit(box, newBin.freeSpaces.get(0));
-				if (fittedBox != null) {
-					placeBox(fittedBox, newBin, 0);
+			if (!growingBin) {
+				Bin newBin = openBin();
+				if (findFit(problem, index, newBin.freeSpaces.get(0), dims)) {
+					placeBox(problem.id(index), dims, newBin, 0);
 				} else {
-					System.err.println("Box too big for bin: " + box);
+					System.err.println("Box too big for bin: " + problem.box(index));
 				}
 			}
 		}
 
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					float maxX = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxX = Math.max(maxX, placedBox.position.x + placedBox.size.x);
-					}
-					activeBins.get(0).w = maxX;
-					break;
-				case "y":
-					float maxY = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxY = Math.max(maxY, placedBox.position.y + placedBox.size.y);
-					}
-					activeBins.get(0).h = maxY;
-					break;
-				default:
-					System.err.println("Invalid growAxis specified for final bin sizing: " + growAxis);
-					break;
-			}
-		}
+		private void placeBox(int id, float[] dims, Bin bin, int spaceIndex) {
+			Space space = removeSpace(bin, spaceIndex);
 
-		for (Bin bin : activeBins) {
-			result.add(bin.boxes);
-		}
+			// Z is 0 for 2D
+			result.add(id, bin.index, space.x, space.y, 0, dims[0], dims[1], dims[2]);
+			addVolume(bin, dims[0] * dims[1] * dims[2]);
+
+			// Split the remaining space into two new ones
+			float topH = space.h - dims[1];
+			float rightW = space.w - dims[0];
 
-		return result;
+			if (space.w > 0 && topH > 0)
+				addSpace(bin, newSpace(space.x, space.y + dims[1], 0, space.w, topH, 0));
+			if (rightW > 0 && dims[1] > 0)
+				addSpace(bin, newSpace(space.x + dims[0], space.y, 0, rightW, dims[1], 0));
+			discard(space);
+		}
 	}
 
-	private Box findFit(Box box, Space space) {
-		// Check all 6 orientations (permutations of x, y, z)
+	private boolean findFit(PackingProblem problem, int index, Space space, float[] dims) {
+		float sx = problem.sizeX(index), sy = problem.sizeY(index), sz = problem.sizeZ(index);
+
+		// Check all 6 orientations (permutations of x, y, z), the fitting one is
+		// written to dims as (w, h, d)
 		// For 2D, we check if the first two dimensions fit in space.w and space.h
 
 		// 1. (x, y, z)
-		if (box.size.x <= space.w && box.size.y <= space.h) {
-			return box;
+		if (sx <= space.w && sy <= space.h) {
+			return setDims(dims, sx, sy, sz);
 		}
 
 		// 2. (x, z, y)
-		if (box.size.x <= space.w && box.size.z <= space.h) {
-			return new Box(box.id, box.position, new Point3f(box.size.x, box.size.z, box.size.y));
+		if (sx <= space.w && sz <= space.h) {
+			return setDims(dims, sx, sz, sy);
 		}
 
 		// 3. (y, x, z)
-		if (box.size.y <= space.w && box.size.x <= space.h) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.x, box.size.z));
+		if (sy <= space.w && sx <= space.h) {
+			return setDims(dims, sy, sx, sz);
 		}
 
 		// 4. (y, z, x)
-		if (box.size.y <= space.w && box.size.z <= space.h) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.z, box.size.x));
+		if (sy <= space.w && sz <= space.h) {
+			return setDims(dims, sy, sz, sx);
 		}
 
 		// 5. (z, x, y)
-		if (box.size.z <= space.w && box.size.x <= space.h) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.x, box.size.y));
+		if (sz <= space.w && sx <= space.h) {
+			return setDims(dims, sz, sx, sy);
 		}
 
 		// 6. (z, y, x)
-		if (box.size.z <= space.w && box.size.y <= space.h) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.y, box.size.x));
+		if (sz <= space.w && sy <= space.h) {
+			return setDims(dims, sz, sy, sx);
 		}
 
-		return null;
+		return false;
 	}
 
-	private void placeBox(Box box, Bin bin, int spaceIndex) {
-		Space space = bin.freeSpaces.get(spaceIndex);
-
-		Box placedBox = new Box(
-				box.id,
-				new Point3f(space.x, space.y, 0), // Z is 0 for 2D
-				new Point3f(box.size.x, box.size.y, box.size.z));
-		bin.boxes.add(placedBox);
-
-		bin.freeSpaces.remove(spaceIndex);
-
-		// Split the remaining space into two new ones
-		Space top = new Space(space.x, space.y + box.size.y, space.w, space.h - box.size.y);
-		Space rightSide = new Space(space.x + box.size.x, space.y, space.w - box.size.x, box.size.y);
-
-		if (top.w > 0 && top.h > 0)
-			bin.freeSpaces.add(top);
-		if (rightSide.w > 0 && rightSide.h > 0)
-			bin.freeSpaces.add(rightSide);
+	private boolean setDims(float[] dims, float w, float h, float d) {
+		dims[0] = w;
+		dims[1] = h;
+		dims[2] = d;
+		return true;
 	}
 }
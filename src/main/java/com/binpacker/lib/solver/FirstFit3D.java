@@ -1,166 +1,166 @@
 package com.binpacker.lib.solver;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import com.binpacker.lib.common.Box;
 import com.binpacker.lib.common.Bin;
-import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.common.Space;
 
-public class FirstFit3D implements Solver {
+public class FirstFit3D implements IncrementalSolver {
+
+	// Merge free spaces that share a whole face when a box fits none of them
+	private final boolean coalesce;
+
+	public FirstFit3D() {
+		this(false);
+	}
+
+	public FirstFit3D(boolean coalesce) {
+		this.coalesce = coalesce;
+	}
+
+	public boolean isCoalescing() {
+		return coalesce;
+	}
 
 	@Override
-	public List<List<Box>> solve(List<Box> boxes, Bin binTemplate, boolean growingBin, String growAxis) {
-		List<Bin> activeBins = new ArrayList<>();
-		List<List<Box>> result = new ArrayList<>();
-
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					binTemplate.w = Integer.MAX_VALUE;
-					break;
-				case "y":
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-				case "z":
-					binTemplate.d = Integer.MAX_VALUE;
-					break;
-				default:
-					System.err.println("Invalid growAxis specified: " + growAxis);
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-			}
+	public String descriptor() {
+		return coalesce ? getClass().getName() + "(coalesce)" : getClass().getName();
+	}
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order) {
+		SolverWorkspace workspace = SolverWorkspace.acquire();
+		try {
+			return pack(problem, order, workspace).copy();
+		} finally {
+			workspace.release();
+		}
+	}
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order, SolverWorkspace workspace) {
+		Decoder decoder = decoder(problem, order.length, workspace);
+		for (int index : order) {
+			decoder.add(index);
+		}
+		return decoder.result();
+	}
+
+	@Override
+	public Decoder decoder(PackingProblem problem, int capacity) {
+		return new FirstFitDecoder(problem, capacity, null);
+	}
+
+	@Override
+	public Decoder decoder(PackingProblem problem, int capacity, SolverWorkspace workspace) {
+		return new FirstFitDecoder(problem, capacity, workspace);
+	}
+
+	private class FirstFitDecoder extends LoggedDecoder {
+		private final float[] dims = new float[3];
+
+		FirstFitDecoder(PackingProblem problem, int capacity, SolverWorkspace workspace) {
+			super(problem, problem.packW(), problem.packH(), problem.packD(), capacity, workspace);
+			this.capacity = newCapacityTree();
+			openBin();
 		}
 
-		activeBins.add(new Bin(0, binTemplate.w, binTemplate.h, binTemplate.d));
-
-		for (Box box : boxes) {
-			boolean placed = false;
-			for (Bin bin : activeBins) {
-				for (int i = 0; i < bin.freeSpaces.size(); i++) {
-					Space space = bin.freeSpaces.get(i);
-					Box fittedBox = findFit(box, space);
-					if (fittedBox != null) {
-						placeBox(fittedBox, bin, i);
-						placed = true;
-						break;
+		@Override
+		protected void place(int index) {
+			float large = problem.large(index), middle = problem.middle(index), small = problem.small(index);
+			// only visit bins whose summary says the box might fit, coalescing
+			// free spaces once before giving up
+			do {
+				for (int b = capacity.firstFit(0, large, middle, small); b >= 0; b = capacity.firstFit(b + 1, large,
+						middle, small)) {
+					Bin bin = activeBins.get(b);
+					for (int i = 0; i < bin.freeSpaces.size(); i++) {
+						Space space = bin.freeSpaces.get(i);
+						if (findFit(problem, index, space, dims)) {
+							placeBox(problem.id(index), dims, bin, i);
+							capacity.update(bin);
+							return;
+						}
 					}
 				}
-				if (placed)
-					break;
-			}
+			} while (coalesce && coalesce());
 
-			if (!growingBin && !placed) {
-				Bin newBin = new Bin(activeBins.size(), binTemplate.w, binTemplate.h, binTemplate.d);
-				activeBins.add(newBin);
-				Box fittedBox = findFit(box, newBin.freeSpaces.get(0));
-				if (fittedBox != null) {
-					placeBox(fittedBox, newBin, 0);
+			if (!growingBin) {
+				Bin newBin = openBin();
+				if (findFit(problem, index, newBin.freeSpaces.get(0), dims)) {
+					placeBox(problem.id(index), dims, newBin, 0);
+					capacity.update(newBin);
 				} else {
-					System.err.println("Box too big for bin: " + box);
+					System.err.println("Box too big for bin: " + problem.box(index));
 				}
 			}
 		}
 
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					float maxX = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxX = Math.max(maxX, placedBox.position.x + placedBox.size.x);
-					}
-					activeBins.get(0).w = maxX;
-					break;
-				case "y":
-					float maxY = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxY = Math.max(maxY, placedBox.position.y + placedBox.size.y);
-					}
-					activeBins.get(0).h = maxY;
-					break;
-				case "z":
-					float maxZ = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxZ = Math.max(maxZ, placedBox.position.z + placedBox.size.z);
-					}
-					activeBins.get(0).d = maxZ;
-					break;
-				default:
-					System.err.println("Invalid growAxis specified for final bin sizing: " + growAxis);
-					break;
-			}
-		}
+		private void placeBox(int id, float[] dims, Bin bin, int spaceIndex) {
+			Space space = removeSpace(bin, spaceIndex);
 
-		for (Bin bin : activeBins) {
-			result.add(bin.boxes);
-		}
+			result.add(id, bin.index, space.x, space.y, space.z, dims[0], dims[1], dims[2]);
+			addVolume(bin, dims[0] * dims[1] * dims[2]);
 
-		return result;
+			// only non-empty remainders are allocated
+			float rightW = space.w - dims[0];
+			float topH = space.h - dims[1];
+			float frontD = space.d - dims[2];
+
+			if (rightW > 0 && space.h > 0 && space.d > 0)
+				addSpace(bin, newSpace(space.x + dims[0], space.y, space.z, rightW, space.h, space.d));
+			if (dims[0] > 0 && topH > 0 && space.d > 0)
+				addSpace(bin, newSpace(space.x, space.y + dims[1], space.z, dims[0], topH, space.d));
+			if (dims[0] > 0 && dims[1] > 0 && frontD > 0)
+				addSpace(bin, newSpace(space.x, space.y, space.z + dims[2], dims[0], dims[1], frontD));
+			discard(space);
+
+		}
 	}
 
-	private Box findFit(Box box, Space space) {
-		// Check all 6 orientations (permutations of x, y, z)
+	private boolean findFit(PackingProblem problem, int index, Space space, float[] dims) {
+		float sx = problem.sizeX(index), sy = problem.sizeY(index), sz = problem.sizeZ(index);
+
+		// Check all 6 orientations (permutations of x, y, z), the fitting one is
+		// written to dims as (w, h, d)
 
 		// 1. (x, y, z)
-		if (box.size.x <= space.w && box.size.y <= space.h && box.size.z <= space.d) {
-			return box;
+		if (sx <= space.w && sy <= space.h && sz <= space.d) {
+			return setDims(dims, sx, sy, sz);
 		}
 
 		// 2. (x, z, y)
-		if (box.size.x <= space.w && box.size.z <= space.h && box.size.y <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.x, box.size.z, box.size.y));
+		if (sx <= space.w && sz <= space.h && sy <= space.d) {
+			return setDims(dims, sx, sz, sy);
 		}
 
 		// 3. (y, x, z)
-		if (box.size.y <= space.w && box.size.x <= space.h && box.size.z <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.x, box.size.z));
+		if (sy <= space.w && sx <= space.h && sz <= space.d) {
+			return setDims(dims, sy, sx, sz);
 		}
 
 		// 4. (y, z, x)
-		if (box.size.y <= space.w && box.size.z <= space.h && box.size.x <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.z, box.size.x));
+		if (sy <= space.w && sz <= space.h && sx <= space.d) {
+			return setDims(dims, sy, sz, sx);
 		}
 
 		// 5. (z, x, y)
-		if (box.size.z <= space.w && box.size.x <= space.h && box.size.y <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.x, box.size.y));
+		if (sz <= space.w && sx <= space.h && sy <= space.d) {
+			return setDims(dims, sz, sx, sy);
 		}
 
 		// 6. (z, y, x)
-		if (box.size.z <= space.w && box.size.y <= space.h && box.size.x <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.y, box.size.x));
+		if (sz <= space.w && sy <= space.h && sx <= space.d) {
+			return setDims(dims, sz, sy, sx);
 		}
 
-		return null;
+		return false;
 	}
 
-	private void placeBox(Box box, Bin bin, int spaceIndex) {
-		Space space = bin.freeSpaces.get(spaceIndex);
-
-		Box placedBox = new Box(
-				box.id,
-				new Point3f(space.x, space.y, space.z),
-				new Point3f(box.size.x, box.size.y, box.size.z));
-		bin.boxes.add(placedBox);
-
-		bin.freeSpaces.remove(spaceIndex);
-
-		Space right = new Space(space.x + box.size.x, space.y, space.z,
-				space.w - box.size.x, space.h, space.d);
-
-		Space top = new Space(space.x, space.y + box.size.y, space.z,
-				box.size.x, space.h - box.size.y, space.d);
-
-		Space front = new Space(space.x, space.y, space.z + box.size.z,
-				box.size.x, box.size.y, space.d - box.size.z);
-
-		if (right.w > 0 && right.h > 0 && right.d > 0)
-			bin.freeSpaces.add(right);
-		if (top.w > 0 && top.h > 0 && top.d > 0)
-			bin.freeSpaces.add(top);
-		if (front.w > 0 && front.h > 0 && front.d > 0)
-			bin.freeSpaces.add(front);
-
+	private boolean setDims(float[] dims, float w, float h, float d) {
+		dims[0] = w;
+		dims[1] = h;
+		dims[2] = d;
+		return true;
 	}
 }
@@ -0,0 +1,16 @@
+package com.binpacker.lib.solver;
+
+import com.binpacker.lib.common.PackingProblem;
+
+/**
+ * Solver whose packing can be resumed from a prefix of the order.
+ */
+public interface IncrementalSolver extends Solver {
+	Decoder decoder(PackingProblem problem, int capacity);
+
+	// Decoder packing into the workspace, without an undo log, so it can only
+	// add boxes. Its result is only valid until the workspace's next pack.
+	default Decoder decoder(PackingProblem problem, int capacity, SolverWorkspace workspace) {
+		return decoder(problem, capacity);
+	}
+}
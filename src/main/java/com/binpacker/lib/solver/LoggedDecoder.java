@@ -0,0 +1,338 @@
+package com.binpacker.lib.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.BinCapacityTree;
+import com.binpacker.lib.common.FreeSpaceIndex;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Space;
+
+/**
+ * Base for decoders of the guillotine solvers. Every change to the bins goes
+ * through the helpers below, which record it in an undo log when logging is
+ * enabled, so truncate() can replay the log backwards to an earlier prefix.
+ * A plain solve runs with logging off and pays nothing for it.
+ *
+ * A plain solve packs into a SolverWorkspace: its bins, bin summary, free
+ * spaces and result all come from the workspace and are reused by the next
+ * solve. Logging decoders may be resumed later from another thread and their
+ * undo log keeps removed spaces, so they allocate everything normally.
+ *
+ * Decoders can coalesce() free spaces when a box fits none of them. Only then
+ * the spaces of bins that changed since the last time are put in an edge
+ * index, so merges cost nothing while boxes keep fitting.
+ */
+abstract class LoggedDecoder implements Decoder {
+	private static final byte REMOVE_SPACE = 0;
+	private static final byte ADD_SPACE = 1;
+	private static final byte OPEN_BIN = 2;
+	private static final byte SET_VOLUME = 3;
+
+	protected final PackingProblem problem;
+	protected final List<Bin> activeBins;
+	protected final PackingResult result;
+	protected final float binW;
+	protected final float binH;
+	protected final float binD;
+	protected final boolean growingBin;
+	// optional bin summary kept in sync on rollback
+	protected BinCapacityTree capacity;
+
+	private final boolean logging;
+	private final SolverWorkspace workspace;
+	private int count = 0;
+
+	// A bin is coalesced again once this many times its new free spaces since
+	// the last time make up its free list, which keeps the work per added space
+	// constant while boxes fit nowhere, like in a growing bin that drops boxes
+	private static final int COALESCE_RATIO = 4;
+
+	// free spaces added to each bin since it was last coalesced, and the bins
+	// with any
+	private int[] added = new int[16];
+	private int[] changedBins = new int[16];
+	private int changedCount = 0;
+	// spaces of the bin being coalesced, kept in sync by the helpers below
+	private FreeSpaceIndex spaceIndex;
+	private boolean coalescing = false;
+
+	// undo log, one entry per change
+	private byte[] ops = new byte[64];
+	private Bin[] logBins = new Bin[64];
+	private Space[] logSpaces = new Space[64];
+	private int[] logIndices = new int[64];
+	private double[] logVolumes = new double[64];
+	private int logSize = 0;
+
+	// log position and result size before each added box
+	private int[] marks = new int[16];
+	private int[] resultSizes = new int[16];
+
+	/**
+	 * @param workspace workspace of the solve for a plain decoder, null for a
+	 *                  decoder with an undo log
+	 */
+	protected LoggedDecoder(PackingProblem problem, float binW, float binH, float binD, int capacity,
+			SolverWorkspace workspace) {
+		this.problem = problem;
+		this.binW = binW;
+		this.binH = binH;
+		this.binD = binD;
+		this.growingBin = problem.isGrowing();
+		this.logging = workspace == null;
+		this.workspace = workspace;
+		if (workspace != null) {
+			workspace.begin(capacity);
+			this.activeBins = workspace.activeBins;
+			this.result = workspace.result();
+		} else {
+			this.activeBins = new ArrayList<>();
+			this.result = new PackingResult(capacity);
+		}
+	}
+
+	// Bin summary for decoders that keep one, reused from the workspace
+	protected BinCapacityTree newCapacityTree() {
+		return workspace != null ? workspace.capacity() : new BinCapacityTree();
+	}
+
+	// Places the box with the given index, opening new bins as needed
+	protected abstract void place(int index);
+
+	@Override
+	public void add(int index) {
+		if (logging) {
+			if (count == marks.length) {
+				marks = Arrays.copyOf(marks, count * 2);
+				resultSizes = Arrays.copyOf(resultSizes, count * 2);
+			}
+			marks[count] = logSize;
+			resultSizes[count] = result.size;
+		}
+		count++;
+		place(index);
+	}
+
+	@Override
+	public void truncate(int count) {
+		if (!logging) {
+			throw new IllegalStateException("Decoder was created without an undo log");
+		}
+		if (count >= this.count) {
+			return;
+		}
+
+		List<Bin> touched = new ArrayList<>();
+		int target = marks[count];
+		while (logSize > target) {
+			logSize--;
+			Bin bin = logBins[logSize];
+			switch (ops[logSize]) {
+				case REMOVE_SPACE:
+					bin.freeSpaces.add(logIndices[logSize], logSpaces[logSize]);
+					markChanged(bin);
+					break;
+				case ADD_SPACE:
+					bin.freeSpaces.remove(logIndices[logSize]);
+					markChanged(bin);
+					break;
+				case SET_VOLUME:
+					bin.usedVolume = logVolumes[logSize];
+					break;
+				default:
+					// a bin that only took a box too big for it never got new spaces
+					if (bin.index < added.length) {
+						added[bin.index] = 0;
+					}
+					activeBins.remove(activeBins.size() - 1);
+					if (capacity != null) {
+						capacity.removeLast();
+					}
+					touched.remove(bin);
+					break;
+			}
+			if (ops[logSize] != OPEN_BIN && !touched.contains(bin)) {
+				touched.add(bin);
+			}
+			logSpaces[logSize] = null;
+			logBins[logSize] = null;
+		}
+
+		result.truncate(resultSizes[count], activeBins.size());
+		this.count = count;
+
+		if (capacity != null) {
+			for (Bin bin : touched) {
+				capacity.update(bin);
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public PackingResult result() {
+		return result;
+	}
+
+	protected Bin openBin() {
+		int index = result.addBin();
+		Bin bin = workspace != null ? workspace.openBin(index, binW, binH, binD) : new Bin(index, binW, binH, binD);
+		activeBins.add(bin);
+		if (capacity != null) {
+			capacity.addBin(bin);
+		}
+		log(OPEN_BIN, bin, null, 0, 0);
+		return bin;
+	}
+
+	protected Space removeSpace(Bin bin, int index) {
+		Space space = bin.freeSpaces.remove(index);
+		if (coalescing) {
+			spaceIndex.remove(bin.index, space);
+		}
+		log(REMOVE_SPACE, bin, space, index, 0);
+		return space;
+	}
+
+	protected void addSpace(Bin bin, Space space) {
+		addSpace(bin, bin.freeSpaces.size(), space);
+	}
+
+	private void addSpace(Bin bin, int index, Space space) {
+		bin.freeSpaces.add(index, space);
+		if (coalescing) {
+			spaceIndex.add(bin.index, space);
+		} else {
+			markChanged(bin);
+		}
+		log(ADD_SPACE, bin, null, index, 0);
+	}
+
+	protected Space newSpace(float x, float y, float z, float w, float h, float d) {
+		return workspace != null ? workspace.arena.allocate(x, y, z, w, h, d) : new Space(x, y, z, w, h, d);
+	}
+
+	// Hands a removed space back for reuse, unless the undo log still holds it
+	protected void discard(Space space) {
+		if (workspace != null) {
+			workspace.arena.recycle(space);
+		}
+	}
+
+	/**
+	 * Merges free spaces that share a whole face, in every bin that got new
+	 * spaces since the last call, for a box that fits none of the spaces as
+	 * they are. A merged space takes the free list place of the earliest of
+	 * its parts. Returns whether any spaces were merged.
+	 */
+	protected boolean coalesce() {
+		if (spaceIndex == null) {
+			spaceIndex = workspace != null ? workspace.spaceIndex() : new FreeSpaceIndex();
+		}
+		FreeSpaceIndex index = spaceIndex;
+		boolean any = false;
+		int kept = 0;
+		for (int c = 0; c < changedCount; c++) {
+			// bins closed by truncate() or listed twice are skipped
+			int b = changedBins[c];
+			if (b >= activeBins.size() || added[b] == 0) {
+				continue;
+			}
+			Bin bin = activeBins.get(b);
+			if (added[b] * COALESCE_RATIO < bin.freeSpaces.size()) {
+				changedBins[kept++] = b;
+				continue;
+			}
+			added[b] = 0;
+			for (Space space : bin.freeSpaces) {
+				index.add(bin.index, space);
+			}
+
+			coalescing = true;
+			boolean merged = false;
+			for (int i = 0; i < bin.freeSpaces.size(); i++) {
+				Space space = bin.freeSpaces.get(i);
+				Space neighbor = index.neighbor(bin.index, space);
+				if (neighbor == null) {
+					continue;
+				}
+				removeSpace(bin, i);
+				int at = i;
+				do {
+					int n = bin.freeSpaces.indexOf(neighbor);
+					removeSpace(bin, n);
+					at = Math.min(at, n);
+					Space union = union(space, neighbor);
+					discard(space);
+					discard(neighbor);
+					space = union;
+				} while ((neighbor = index.neighbor(bin.index, space)) != null);
+				addSpace(bin, at, space);
+				merged = true;
+				i = at; // spaces before the merged one were checked already
+			}
+			coalescing = false;
+
+			for (Space space : bin.freeSpaces) {
+				index.remove(bin.index, space);
+			}
+			if (merged && capacity != null) {
+				capacity.update(bin);
+			}
+			any |= merged;
+		}
+		changedCount = kept;
+		return any;
+	}
+
+	private Space union(Space a, Space b) {
+		float x = Math.min(a.x, b.x), y = Math.min(a.y, b.y), z = Math.min(a.z, b.z);
+		return newSpace(x, y, z, Math.max(a.x + a.w, b.x + b.w) - x, Math.max(a.y + a.h, b.y + b.h) - y,
+				Math.max(a.z + a.d, b.z + b.d) - z);
+	}
+
+	private void markChanged(Bin bin) {
+		if (bin.index >= added.length) {
+			added = Arrays.copyOf(added, Math.max(bin.index + 1, added.length * 2));
+		}
+		if (added[bin.index]++ == 0) {
+			if (changedCount == changedBins.length) {
+				changedBins = Arrays.copyOf(changedBins, changedCount * 2);
+			}
+			changedBins[changedCount++] = bin.index;
+		}
+	}
+
+	protected void addVolume(Bin bin, double volume) {
+		log(SET_VOLUME, bin, null, 0, bin.usedVolume);
+		bin.usedVolume += volume;
+	}
+
+	private void log(byte op, Bin bin, Space space, int index, double volume) {
+		if (!logging) {
+			return;
+		}
+		if (logSize == ops.length) {
+			int length = logSize * 2;
+			ops = Arrays.copyOf(ops, length);
+			logBins = Arrays.copyOf(logBins, length);
+			logSpaces = Arrays.copyOf(logSpaces, length);
+			logIndices = Arrays.copyOf(logIndices, length);
+			logVolumes = Arrays.copyOf(logVolumes, length);
+		}
+		ops[logSize] = op;
+		logBins[logSize] = bin;
+		logSpaces[logSize] = space;
+		logIndices[logSize] = index;
+		logVolumes[logSize] = volume;
+		logSize++;
+	}
+}
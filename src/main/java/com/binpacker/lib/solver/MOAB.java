@@ -1,72 +1,78 @@
 package com.binpacker.lib.solver;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import com.binpacker.lib.common.Box;
 import com.binpacker.lib.common.Bin;
-import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.BinCapacityTree;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.common.Space;
+import com.binpacker.lib.common.SpaceArena;
 
 public class MOAB implements Solver {
 
 	@Override
-	public List<List<Box>> solve(List<Box> boxes, Bin binTemplate, boolean growingBin, String growAxis) {
-		List<Bin> activeBins = new ArrayList<>();
-		List<List<Box>> result = new ArrayList<>();
-
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					binTemplate.w = Integer.MAX_VALUE;
-					break;
-				case "y":
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-				case "z":
-					binTemplate.d = Integer.MAX_VALUE;
-					break;
-				default:
-					System.err.println("Invalid growAxis specified: " + growAxis);
-					binTemplate.h = Integer.MAX_VALUE;
-					break;
-			}
+	public PackingResult pack(PackingProblem problem, int[] order) {
+		SolverWorkspace workspace = SolverWorkspace.acquire();
+		try {
+			return pack(problem, order, workspace).copy();
+		} finally {
+			workspace.release();
 		}
+	}
 
-		activeBins.add(new Bin(0, binTemplate.w, binTemplate.h, binTemplate.d));
-
-		for (Box box : boxes) {
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order, SolverWorkspace workspace) {
+		workspace.begin(order.length);
+		List<Bin> activeBins = workspace.activeBins;
+		PackingResult result = workspace.result();
+		float[] dims = new float[3];
+		float[] bestDims = new float[3];
+		float binW = problem.packW(), binH = problem.packH(), binD = problem.packD();
+		// spaces split off by a placement are mostly pruned right away, they
+		// come from and go back to the arena of the workspace
+		SpaceArena arena = workspace.arena;
+
+		activeBins.add(workspace.openBin(result.addBin(), binW, binH, binD));
+		BinCapacityTree capacity = workspace.capacity();
+		capacity.addBin(activeBins.get(0));
+
+		for (int index : order) {
+			float large = problem.large(index), middle = problem.middle(index), small = problem.small(index);
 			boolean placed = false;
-			for (Bin bin : activeBins) {
+			// only visit bins whose summary says the box might fit
+			for (int b = capacity.firstFit(0, large, middle, small); b >= 0; b = capacity.firstFit(b + 1,
+					large, middle, small)) {
+				Bin bin = activeBins.get(b);
 				float bestScore = Float.MAX_VALUE;
 				Bin bestFitBin = null;
 				int bestSpaceIndex = -1;
-				Box bestFittedBox = null;
 
 				for (int i = 0; i < bin.freeSpaces.size(); i++) {
 					Space space = bin.freeSpaces.get(i);
-					Box fittedBox = findFit(box, space);
-					if (fittedBox != null) {
-						float score = calculateScore(fittedBox, space);
+					if (findFit(problem, index, space, dims)) {
+						float score = calculateScore(dims, space);
 						if (score < bestScore) {
 							bestScore = score;
 							bestFitBin = bin;
 							bestSpaceIndex = i;
-							bestFittedBox = fittedBox;
+							System.arraycopy(dims, 0, bestDims, 0, 3);
 						}
 					}
 				}
 
-				if (bestFittedBox != null) {
-					Box placedBox = placeBox(bestFittedBox, bestFitBin, bestSpaceIndex);
-					pruneCollidingSpaces(placedBox, bestFitBin);
+				if (bestFitBin != null) {
+					int placedBox = placeBox(problem.id(index), bestDims, bestFitBin, bestSpaceIndex, result,
+							arena);
+					pruneCollidingSpaces(result, placedBox, bestFitBin, arena);
 					placed = true;
 
 					bin.utilCounter++;
 					if (bin.utilCounter > 10) {
-						pruneWrappedSpacesBin(bin);
+						pruneWrappedSpacesBin(bin, arena);
 						bin.utilCounter = 0;
 					}
+					capacity.update(bin);
 
 					break; // Break from the activeBins loop, as we've placed the box
 				}
@@ -74,217 +80,216 @@ public class MOAB implements Solver {
 			}
 
 			if (!placed) {
-				Bin newBin = new Bin(activeBins.size(), binTemplate.w, binTemplate.h, binTemplate.d);
+				Bin newBin = workspace.openBin(result.addBin(), binW, binH, binD);
 				activeBins.add(newBin);
-				Box fittedBox = findFit(box, newBin.freeSpaces.get(0));
-				if (fittedBox != null) {
-					placeBox(fittedBox, newBin, 0);
+				capacity.addBin(newBin);
+				if (findFit(problem, index, newBin.freeSpaces.get(0), dims)) {
+					placeBox(problem.id(index), dims, newBin, 0, result, arena);
+					capacity.update(newBin);
 				} else {
-					System.err.println("Box too big for bin: " + box);
+					System.err.println("Box too big for bin: " + problem.box(index));
 				}
 			}
 
 		}
 
-		if (growingBin) {
-			switch (growAxis) {
-				case "x":
-					float maxX = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxX = Math.max(maxX, placedBox.position.x + placedBox.size.x);
-					}
-					activeBins.get(0).w = maxX;
+		if (problem.isGrowing()) {
+			Bin bin = activeBins.get(0);
+			switch (problem.growAxis()) {
+				case X:
+					bin.w = result.maxExtent("x");
 					break;
-				case "y":
-					float maxY = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxY = Math.max(maxY, placedBox.position.y + placedBox.size.y);
-					}
-					activeBins.get(0).h = maxY;
-					break;
-				case "z":
-					float maxZ = 0;
-					for (Box placedBox : activeBins.get(0).boxes) {
-						maxZ = Math.max(maxZ, placedBox.position.z + placedBox.size.z);
-					}
-					activeBins.get(0).d = maxZ;
+				case Y:
+					bin.h = result.maxExtent("y");
 					break;
 				default:
-					System.err.println("Invalid growAxis specified for final bin sizing: " + growAxis);
+					bin.d = result.maxExtent("z");
 					break;
 			}
 		}
 
-		for (Bin bin : activeBins) {
-			result.add(bin.boxes);
-		}
-
 		return result;
 	}
 
-	private Box findFit(Box box, Space space) {
-		// Check all 6 orientations (permutations of x, y, z)
+	private boolean findFit(PackingProblem problem, int index, Space space, float[] dims) {
+		float sx = problem.sizeX(index), sy = problem.sizeY(index), sz = problem.sizeZ(index);
+
+		// Check all 6 orientations (permutations of x, y, z), the fitting one is
+		// written to dims as (w, h, d)
 
 		// 1. (x, y, z)
-		if (box.size.x <= space.w && box.size.y <= space.h && box.size.z <= space.d) {
-			return box;
+		if (sx <= space.w && sy <= space.h && sz <= space.d) {
+			return setDims(dims, sx, sy, sz);
 		}
 
 		// 2. (x, z, y)
-		if (box.size.x <= space.w && box.size.z <= space.h && box.size.y <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.x, box.size.z, box.size.y));
+		if (sx <= space.w && sz <= space.h && sy <= space.d) {
+			return setDims(dims, sx, sz, sy);
 		}
 
 		// 3. (y, x, z)
-		if (box.size.y <= space.w && box.size.x <= space.h && box.size.z <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.x, box.size.z));
+		if (sy <= space.w && sx <= space.h && sz <= space.d) {
+			return setDims(dims, sy, sx, sz);
 		}
 
 		// 4. (y, z, x)
-		if (box.size.y <= space.w && box.size.z <= space.h && box.size.x <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.y, box.size.z, box.size.x));
+		if (sy <= space.w && sz <= space.h && sx <= space.d) {
+			return setDims(dims, sy, sz, sx);
 		}
 
 		// 5. (z, x, y)
-		if (box.size.z <= space.w && box.size.x <= space.h && box.size.y <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.x, box.size.y));
+		if (sz <= space.w && sx <= space.h && sy <= space.d) {
+			return setDims(dims, sz, sx, sy);
 		}
 
 		// 6. (z, y, x)
-		if (box.size.z <= space.w && box.size.y <= space.h && box.size.x <= space.d) {
-			return new Box(box.id, box.position, new Point3f(box.size.z, box.size.y, box.size.x));
+		if (sz <= space.w && sy <= space.h && sx <= space.d) {
+			return setDims(dims, sz, sy, sx);
 		}
 
-		return null;
+		return false;
 	}
 
-	private Box placeBox(Box box, Bin bin, int spaceIndex) {
+	private boolean setDims(float[] dims, float w, float h, float d) {
+		dims[0] = w;
+		dims[1] = h;
+		dims[2] = d;
+		return true;
+	}
+
+	private int placeBox(int id, float[] dims, Bin bin, int spaceIndex, PackingResult result, SpaceArena arena) {
 		Space space = bin.freeSpaces.get(spaceIndex);
 
-		Box placedBox = new Box(
-				box.id,
-				new Point3f(space.x, space.y, space.z),
-				new Point3f(box.size.x, box.size.y, box.size.z));
-		bin.boxes.add(placedBox);
+		int placedBox = result.add(id, bin.index, space.x, space.y, space.z, dims[0], dims[1], dims[2]);
 
+		bin.usedVolume += dims[0] * dims[1] * dims[2];
 		bin.freeSpaces.remove(spaceIndex);
 
-		Space right = new Space(space.x + box.size.x, space.y, space.z,
-				space.w - box.size.x, space.h, space.d);
-
-		Space top = new Space(space.x, space.y + box.size.y, space.z,
-				space.w, space.h - box.size.y, space.d);
-
-		Space front = new Space(space.x, space.y, space.z + box.size.z,
-				space.w, space.h, space.d - box.size.z);
+		float rightW = space.w - dims[0];
+		float topH = space.h - dims[1];
+		float frontD = space.d - dims[2];
 
-		if (right.w > 0 && right.h > 0 && right.d > 0)
-			bin.freeSpaces.add(right);
-		if (top.w > 0 && top.h > 0 && top.d > 0)
-			bin.freeSpaces.add(top);
-		if (front.w > 0 && front.h > 0 && front.d > 0)
-			bin.freeSpaces.add(front);
+		if (rightW > 0 && space.h > 0 && space.d > 0)
+			bin.freeSpaces.add(arena.allocate(space.x + dims[0], space.y, space.z, rightW, space.h, space.d));
+		if (space.w > 0 && topH > 0 && space.d > 0)
+			bin.freeSpaces.add(arena.allocate(space.x, space.y + dims[1], space.z, space.w, topH, space.d));
+		if (space.w > 0 && space.h > 0 && frontD > 0)
+			bin.freeSpaces.add(arena.allocate(space.x, space.y, space.z + dims[2], space.w, space.h, frontD));
+		arena.recycle(space);
 
 		return placedBox;
 
 	}
 
-	private void pruneCollidingSpaces(Box box, Bin bin) {
+	private void pruneCollidingSpaces(PackingResult result, int box, Bin bin, SpaceArena arena) {
 		// can ignore 4 first ones, since those are created around the latest box
 		// placement
 		for (int i = bin.freeSpaces.size() - 1; i >= 0; i--) {
 			Space space = bin.freeSpaces.get(i);
-			if (box.collidesWith(space)) {
+			if (collides(result, box, space)) {
 				bin.freeSpaces.remove(i);
-				splitCollidingFreeSpace(box, space, bin);
+				splitCollidingFreeSpace(result, box, space, bin, arena);
+				arena.recycle(space);
 			}
 		}
 	}
 
-	private void splitCollidingFreeSpace(Box box, Space space, Bin bin) {
+	private boolean collides(PackingResult result, int box, Space space) {
+		return result.x[box] < space.x + space.w &&
+				result.y[box] < space.y + space.h &&
+				result.z[box] < space.z + space.d &&
+				result.x[box] + result.w[box] > space.x &&
+				result.y[box] + result.h[box] > space.y &&
+				result.z[box] + result.d[box] > space.z;
+	}
+
+	private void splitCollidingFreeSpace(PackingResult result, int index, Space space, Bin bin,
+			SpaceArena arena) {
 		// Create 4 new spaces around the box in the XY plane
 		// Z and Depth are inherited from the original space
+		float boxX = result.x[index], boxY = result.y[index], boxZ = result.z[index];
+		float boxW = result.w[index], boxH = result.h[index], boxD = result.d[index];
 
 		// 1. Right space (from box right edge to space right edge)
-		if (box.position.x + box.size.x < space.x + space.w) {
-			Space right = new Space(
-					box.position.x + box.size.x,
+		if (boxX + boxW < space.x + space.w) {
+			Space right = arena.allocate(
+					boxX + boxW,
 					space.y,
 					space.z,
-					(space.x + space.w) - (box.position.x + box.size.x),
+					(space.x + space.w) - (boxX + boxW),
 					space.h,
 					space.d);
 			bin.freeSpaces.add(right);
 		}
 
 		// 2. Left space (from space left edge to box left edge)
-		if (box.position.x > space.x) {
-			Space left = new Space(
+		if (boxX > space.x) {
+			Space left = arena.allocate(
 					space.x,
 					space.y,
 					space.z,
-					box.position.x - space.x,
+					boxX - space.x,
 					space.h,
 					space.d);
 			bin.freeSpaces.add(left);
 		}
 
 		// 3. Top space (from box top edge to space top edge)
-		if (box.position.y + box.size.y < space.y + space.h) {
-			Space top = new Space(
+		if (boxY + boxH < space.y + space.h) {
+			Space top = arena.allocate(
 					space.x,
-					box.position.y + box.size.y,
+					boxY + boxH,
 					space.z,
 					space.w,
-					(space.y + space.h) - (box.position.y + box.size.y),
+					(space.y + space.h) - (boxY + boxH),
 					space.d);
 			bin.freeSpaces.add(top);
 		}
 
 		// 4. Bottom space (from space bottom edge to box bottom edge)
-		if (box.position.y > space.y) {
-			Space bottom = new Space(
+		if (boxY > space.y) {
+			Space bottom = arena.allocate(
 					space.x,
 					space.y,
 					space.z,
 					space.w,
-					box.position.y - space.y,
+					boxY - space.y,
 					space.d);
 			bin.freeSpaces.add(bottom);
 		}
 
 		// 5. Front space (from box front edge to space front edge)
-		if (box.position.z + box.size.z < space.z + space.d) {
-			Space front = new Space(
+		if (boxZ + boxD < space.z + space.d) {
+			Space front = arena.allocate(
 					space.x,
 					space.y,
-					box.position.z + box.size.z,
+					boxZ + boxD,
 					space.w,
 					space.h,
-					(space.z + space.d) - (box.position.z + box.size.z));
+					(space.z + space.d) - (boxZ + boxD));
 			bin.freeSpaces.add(front);
 		}
 
 		// 6. Back space (from space back edge to box back edge)
-		if (box.position.z > space.z) {
-			Space back = new Space(
+		if (boxZ > space.z) {
+			Space back = arena.allocate(
 					space.x,
 					space.y,
 					space.z,
 					space.w,
 					space.h,
-					box.position.z - space.z);
+					boxZ - space.z);
 			bin.freeSpaces.add(back);
 		}
 
 	}
 
-	void pruneWrappedSpacesBin(Bin bin) {
+	void pruneWrappedSpacesBin(Bin bin, SpaceArena arena) {
 		for (int i = bin.freeSpaces.size() - 1; i >= 0; i--) {
 			Space space1 = bin.freeSpaces.get(i);
 			// Remove invalid spaces (zero or negative dimensions)
 			if (space1.w <= 0 || space1.h <= 0 || space1.d <= 0) {
-				bin.freeSpaces.remove(i);
+				arena.recycle(bin.freeSpaces.remove(i));
 				continue;
 			}
 
@@ -308,18 +313,18 @@ public class MOAB implements Solver {
 			}
 
 			if (isWrapped) {
-				bin.freeSpaces.remove(i);
+				arena.recycle(bin.freeSpaces.remove(i));
 			}
 		}
 	}
 
-	void pruneWrappedSpaces(List<Bin> activeBins) {
+	void pruneWrappedSpaces(List<Bin> activeBins, SpaceArena arena) {
 		for (Bin bin : activeBins) {
-			pruneWrappedSpacesBin(bin);
+			pruneWrappedSpacesBin(bin, arena);
 		}
 	}
 
-	private float calculateScore(Box box, Space space) {
+	private float calculateScore(float[] dims, Space space) {
 		// Add a component for distance from origin (smaller x, y, z is better)
 		// Assuming space.x, space.y, space.z are non-negative.
 		float distanceScore = space.x + space.y + space.z;
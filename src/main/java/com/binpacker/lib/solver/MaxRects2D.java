@@ -0,0 +1,606 @@
+package com.binpacker.lib.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.BinCapacityTree;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingProblem.GrowAxis;
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * MaxRects 2D packing (Jylanki, "A Thousand Ways to Pack the Bin").
+ *
+ * Free area of a bin is kept as the set of maximal free rectangles, which may
+ * overlap. A placed box splits every free rectangle it intersects into up to
+ * four maximal remainders, and rectangles contained in another one are
+ * pruned. Only the new remainders are checked for containment, so a placement
+ * costs time linear in the number of free rectangles instead of quadratic.
+ *
+ * Fixed bins are found through a BinCapacityTree over the sides and free area
+ * each bin offers, so a box skips full bins without visiting them. A growing
+ * bin keeps its free rectangles in a BandIndex along the grow axis, and
+ * splitting and pruning only visit the rectangles near the placed box. The
+ * best position search only rates the free rectangles a box fits. Each bin
+ * keeps a BinCapacityTree over the sides of its free rectangles, and a bin
+ * with few of them is scanned instead.
+ *
+ * Boxes keep their x/y footprint and may be turned by 90 degrees. Unlike
+ * FirstFit2D they are not tipped onto another face, which matches sheet and
+ * pallet layer items whose height is fixed.
+ */
+public class MaxRects2D implements Solver {
+
+	// Bottom left and contact point measure "bottom" along the growing axis
+	// when packing into a growing bin, and along y otherwise. In a growing bin
+	// contact point only breaks ties between equally low positions, pure
+	// contact scoring builds towers along a wall in an open ended strip.
+	public enum Rule {
+		// smallest leftover on the shorter side of the free rectangle
+		BEST_SHORT_SIDE_FIT,
+		// lowest top edge, then leftmost
+		BOTTOM_LEFT,
+		// most edge length touching walls and placed boxes
+		CONTACT_POINT
+	}
+
+	// Free rectangles up to which a bin is searched by a plain scan
+	private static final int SCAN_LIMIT = 64;
+
+	private final Rule rule;
+
+	public MaxRects2D() {
+		this(Rule.BEST_SHORT_SIDE_FIT);
+	}
+
+	public MaxRects2D(Rule rule) {
+		this.rule = rule;
+	}
+
+	public Rule getRule() {
+		return rule;
+	}
+
+	@Override
+	public String descriptor() {
+		return rule == Rule.BEST_SHORT_SIDE_FIT ? getClass().getName() : getClass().getName() + "(" + rule + ")";
+	}
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order) {
+		List<RectBin> activeBins = new ArrayList<>();
+		PackingResult result = new PackingResult(order.length);
+		GrowAxis axis = problem.growAxis();
+		if (axis == GrowAxis.Z) {
+			// flat bins cannot grow along z
+			System.err.println("Invalid growAxis specified: z");
+			axis = GrowAxis.Y;
+		}
+		int grow = axis == null ? -1 : axis.ordinal();
+
+		float maxDim = 1;
+		float minSide = Float.MAX_VALUE;
+		float stripBound = 0;
+		for (int index : order) {
+			float sx = problem.sizeX(index), sy = problem.sizeY(index);
+			float longest = Math.max(sx, sy);
+			maxDim = Math.max(maxDim, longest);
+			minSide = Math.min(minSide, Math.min(sx, sy));
+			stripBound += longest;
+		}
+
+		// A growing bin never needs more than every box stacked end to end.
+		// Using that bound instead of Integer.MAX_VALUE keeps free rectangle
+		// edges exact in float, otherwise rounding stops containment pruning.
+		float binW = grow == 0 ? Math.min(Integer.MAX_VALUE, stripBound) : problem.binW();
+		float binH = grow == 1 ? Math.min(Integer.MAX_VALUE, stripBound) : problem.binH();
+
+		BinCapacityTree capacity = grow < 0 ? new BinCapacityTree() : null;
+		activeBins.add(new RectBin(new Bin(result.addBin(), binW, binH), grow, maxDim, minSide, result, capacity));
+
+		for (int index : order) {
+			if (grow >= 0) {
+				// a growing bin is the only one, boxes it cannot take are left out
+				activeBins.get(0).place(problem, index);
+				continue;
+			}
+
+			float a = problem.sizeX(index), b = problem.sizeY(index);
+			float longSide = Math.max(a, b), shortSide = Math.min(a, b);
+			boolean placed = false;
+			for (int bin = capacity.firstFit(0, longSide, shortSide, 1); bin >= 0; bin = capacity.firstFit(bin + 1,
+					longSide, shortSide, 1)) {
+				if (activeBins.get(bin).place(problem, index)) {
+					placed = true;
+					break;
+				}
+			}
+
+			if (!placed) {
+				RectBin newBin = new RectBin(new Bin(result.addBin(), binW, binH), grow, maxDim, minSide, result,
+						capacity);
+				activeBins.add(newBin);
+				if (!newBin.place(problem, index)) {
+					System.err.println("Box too big for bin: " + problem.box(index));
+				}
+			}
+		}
+
+		if (grow == 0) {
+			activeBins.get(0).bin.w = result.maxExtent("x");
+		} else if (grow == 1) {
+			activeBins.get(0).bin.h = result.maxExtent("y");
+		}
+
+		return result;
+	}
+
+	/**
+	 * Free rectangles of a bin stored as parallel arrays. Removal swaps in the
+	 * last rectangle, so order is not preserved.
+	 */
+	static class FreeRects {
+		float[] x = new float[16];
+		float[] y = new float[16];
+		float[] w = new float[16];
+		float[] h = new float[16];
+		int size = 0;
+
+		void add(float rx, float ry, float rw, float rh) {
+			if (size == x.length) {
+				x = Arrays.copyOf(x, size * 2);
+				y = Arrays.copyOf(y, size * 2);
+				w = Arrays.copyOf(w, size * 2);
+				h = Arrays.copyOf(h, size * 2);
+			}
+			x[size] = rx;
+			y[size] = ry;
+			w[size] = rw;
+			h[size] = rh;
+			size++;
+		}
+
+		void remove(int i) {
+			size--;
+			x[i] = x[size];
+			y[i] = y[size];
+			w[i] = w[size];
+			h[i] = h[size];
+		}
+
+		boolean contains(int i, float rx, float ry, float rw, float rh) {
+			return rx >= x[i] && ry >= y[i] && rx + rw <= x[i] + w[i] && ry + rh <= y[i] + h[i];
+		}
+	}
+
+	/**
+	 * Slots of the free rectangles of a growing bin, bucketed by the band of
+	 * the grow axis they start in. Rectangles longer than a band along the
+	 * axis, like the ones open towards the end of the strip, are kept in a list
+	 * of their own. Any other rectangle reaching into a range starts at most
+	 * one band before it, so a query only visits the bands around the range.
+	 */
+	static class BandIndex {
+		private static final int TALL = -1;
+
+		private final float band;
+		private int[][] bands = new int[16][];
+		private int[] bandSizes = new int[16];
+		private int[] tall = new int[16];
+		private int tallSize = 0;
+		// bands above this one have never held a rectangle
+		private int topBand = -1;
+		// list each slot is in, a band or TALL, and its position there
+		private int[] list = new int[16];
+		private int[] position = new int[16];
+		// slots found by the last query
+		int[] found = new int[16];
+
+		BandIndex(float band) {
+			this.band = band;
+		}
+
+		void add(int slot, float start, float length) {
+			if (slot >= list.length) {
+				list = Arrays.copyOf(list, Math.max(slot + 1, list.length * 2));
+				position = Arrays.copyOf(position, list.length);
+			}
+			if (length > band) {
+				if (tallSize == tall.length) {
+					tall = Arrays.copyOf(tall, tallSize * 2);
+				}
+				list[slot] = TALL;
+				position[slot] = tallSize;
+				tall[tallSize++] = slot;
+				return;
+			}
+			int b = (int) (start / band);
+			if (b >= bands.length) {
+				bands = Arrays.copyOf(bands, Math.max(b + 1, bands.length * 2));
+				bandSizes = Arrays.copyOf(bandSizes, bands.length);
+			}
+			if (bands[b] == null) {
+				bands[b] = new int[8];
+			} else if (bandSizes[b] == bands[b].length) {
+				bands[b] = Arrays.copyOf(bands[b], bandSizes[b] * 2);
+			}
+			list[slot] = b;
+			position[slot] = bandSizes[b];
+			bands[b][bandSizes[b]++] = slot;
+			topBand = Math.max(topBand, b);
+		}
+
+		void remove(int slot) {
+			int[] entries = list[slot] == TALL ? tall : bands[list[slot]];
+			int last = list[slot] == TALL ? --tallSize : --bandSizes[list[slot]];
+			entries[position[slot]] = entries[last];
+			position[entries[last]] = position[slot];
+		}
+
+		// The rectangle in slot from was moved into slot to
+		void move(int from, int to) {
+			int[] entries = list[from] == TALL ? tall : bands[list[from]];
+			entries[position[from]] = to;
+			list[to] = list[from];
+			position[to] = position[from];
+		}
+
+		/**
+		 * Stores the slots of every rectangle that may reach into [lo, hi]
+		 * along the axis in found and returns their count. One more band on
+		 * each side covers rounding in the band of a rectangle.
+		 */
+		int query(float lo, float hi) {
+			int from = Math.max(0, (int) (lo / band) - 2);
+			// open rectangles reach the end of the strip, far beyond any band
+			int to = (int) Math.min(topBand, hi / band + 1);
+			int count = tallSize;
+			for (int b = from; b <= to; b++) {
+				count += bandSizes[b];
+			}
+			if (count > found.length) {
+				found = new int[Math.max(count, found.length * 2)];
+			}
+			System.arraycopy(tall, 0, found, 0, tallSize);
+			count = tallSize;
+			for (int b = from; b <= to; b++) {
+				if (bandSizes[b] > 0) {
+					System.arraycopy(bands[b], 0, found, count, bandSizes[b]);
+					count += bandSizes[b];
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * A bin with its maximal free rectangles. A fixed bin reports the longest
+	 * and shortest side any free rectangle offers and its free area to the
+	 * capacity tree, so bins that cannot take a box are skipped without
+	 * scanning.
+	 */
+	class RectBin {
+		final Bin bin;
+		private final PackingResult result;
+		private final FreeRects free = new FreeRects();
+		private final FreeRects created = new FreeRects();
+		// free rectangles near a placement, and those it removes
+		private final BandIndex index;
+		// sides and area of every free rectangle by slot, for the best position
+		// search to skip the ones a box cannot fit
+		private final BinCapacityTree fits = new BinCapacityTree();
+		private int[] found = new int[16];
+		private int[] hits = new int[16];
+		private final BinCapacityTree capacity;
+		private final PlacementGrid grid;
+		private final float[] lo = new float[3];
+		private final float[] hi = new float[3];
+		private final boolean growX;
+		private final boolean growing;
+		private final float minSide;
+		private float maxLongSide = Float.MAX_VALUE;
+		private float maxShortSide = Float.MAX_VALUE;
+		private double freeArea;
+		// best position found by the current search
+		private float bestPrimary;
+		private float bestSecondary;
+		private int bestSlot;
+		private int bestRotation;
+
+		RectBin(Bin bin, int grow, float maxDim, float minSide, PackingResult result, BinCapacityTree capacity) {
+			this.bin = bin;
+			this.result = result;
+			this.growX = grow == 0;
+			this.growing = grow >= 0;
+			this.minSide = minSide;
+			this.capacity = capacity;
+			this.index = growing ? new BandIndex(maxDim) : null;
+			this.grid = rule == Rule.CONTACT_POINT ? new PlacementGrid(bin, grow, maxDim) : null;
+			this.freeArea = (double) bin.w * bin.h;
+			addFree(0, 0, bin.w, bin.h);
+			if (capacity != null) {
+				capacity.addBin(bin);
+				updateLimits();
+			}
+		}
+
+		boolean place(PackingProblem problem, int index) {
+			float a = problem.sizeX(index), b = problem.sizeY(index);
+			if (Math.min(a, b) > maxShortSide || Math.max(a, b) > maxLongSide) {
+				return false;
+			}
+
+			bestPrimary = Float.MAX_VALUE;
+			bestSecondary = Float.MAX_VALUE;
+			bestSlot = -1;
+			if (free.size <= SCAN_LIMIT) {
+				for (int i = 0; i < free.size; i++) {
+					consider(i, a, b);
+				}
+			} else {
+				// only the rectangles the box fits, in slot order like the scan
+				int n = fits.allFits(Math.max(a, b), Math.min(a, b), 1);
+				for (int k = 0; k < n; k++) {
+					consider(fits.found(k), a, b);
+				}
+			}
+
+			if (bestSlot < 0) {
+				return false;
+			}
+			float bestX = free.x[bestSlot];
+			float bestY = free.y[bestSlot];
+			float bestW = bestRotation == 0 ? a : b;
+			float bestH = bestRotation == 0 ? b : a;
+
+			int placed = result.add(problem.id(index), bin.index, bestX, bestY, 0, bestW, bestH,
+					problem.sizeZ(index));
+			freeArea -= (double) bestW * bestH;
+			if (grid != null) {
+				setBounds(bestX, bestY, bestW, bestH);
+				grid.add(placed, lo, hi);
+			}
+			split(bestX, bestY, bestW, bestH);
+			return true;
+		}
+
+		// Rates both rotations of the box in free rectangle i
+		private void consider(int i, float a, float b) {
+			for (int rotation = 0; rotation < 2; rotation++) {
+				float w = rotation == 0 ? a : b;
+				float h = rotation == 0 ? b : a;
+				if (w > free.w[i] || h > free.h[i]) {
+					continue;
+				}
+
+				float primary;
+				float secondary;
+				switch (rule) {
+					case BOTTOM_LEFT:
+						primary = growX ? free.x[i] + w : free.y[i] + h;
+						secondary = growX ? free.y[i] : free.x[i];
+						break;
+					case CONTACT_POINT:
+						if (growing) {
+							primary = growX ? free.x[i] + w : free.y[i] + h;
+							secondary = -contact(free.x[i], free.y[i], w, h);
+						} else {
+							primary = -contact(free.x[i], free.y[i], w, h);
+							secondary = free.y[i] + free.x[i];
+						}
+						break;
+					default:
+						float leftoverW = free.w[i] - w;
+						float leftoverH = free.h[i] - h;
+						primary = Math.min(leftoverW, leftoverH);
+						secondary = Math.max(leftoverW, leftoverH);
+						break;
+				}
+
+				if (primary < bestPrimary || (primary == bestPrimary && secondary < bestSecondary)) {
+					bestPrimary = primary;
+					bestSecondary = secondary;
+					bestSlot = i;
+					bestRotation = rotation;
+				}
+			}
+		}
+
+		private float contact(float x, float y, float w, float h) {
+			float contact = 0;
+			if (x == 0 || x + w == bin.w) {
+				contact += h;
+			}
+			if (y == 0 || y + h == bin.h) {
+				contact += w;
+			}
+			setBounds(x, y, w, h);
+			return contact + grid.contactLength(result, lo, hi);
+		}
+
+		private void setBounds(float x, float y, float w, float h) {
+			lo[0] = x;
+			lo[1] = y;
+			lo[2] = 0;
+			hi[0] = x + w;
+			hi[1] = y + h;
+			hi[2] = 0;
+		}
+
+		private void split(float px, float py, float pw, float ph) {
+			created.size = 0;
+
+			int count = 0;
+			int candidates = near(growX ? px : py, growX ? px + pw : py + ph);
+			for (int k = 0; k < candidates; k++) {
+				int i = found[k];
+				if (px < free.x[i] + free.w[i] && px + pw > free.x[i] && py < free.y[i] + free.h[i]
+						&& py + ph > free.y[i]) {
+					count = hit(count, i);
+				}
+			}
+			removeHits(count, true, px, py, pw, ph);
+
+			// prune new rectangles contained in an old one or in another new one
+			for (int n = 0; n < created.size; n++) {
+				float nx = created.x[n], ny = created.y[n], nw = created.w[n], nh = created.h[n];
+				boolean contained = false;
+				// a rectangle containing this one reaches over its start
+				candidates = near(growX ? nx : ny, growX ? nx : ny);
+				for (int k = 0; k < candidates && !contained; k++) {
+					contained = free.contains(found[k], nx, ny, nw, nh);
+				}
+				for (int m = 0; m < created.size && !contained; m++) {
+					if (m != n && created.contains(m, nx, ny, nw, nh)) {
+						// of two identical rectangles keep the first
+						contained = !(created.contains(n, created.x[m], created.y[m], created.w[m], created.h[m])
+								&& m > n);
+					}
+				}
+				if (contained) {
+					created.remove(n--);
+				}
+			}
+
+			// old rectangles are never contained in each other, only check them
+			// against the new ones
+			count = 0;
+			for (int n = 0; n < created.size; n++) {
+				candidates = near(growX ? created.x[n] : created.y[n],
+						growX ? created.x[n] + created.w[n] : created.y[n] + created.h[n]);
+				for (int k = 0; k < candidates; k++) {
+					int i = found[k];
+					if (created.contains(n, free.x[i], free.y[i], free.w[i], free.h[i])) {
+						count = hit(count, i);
+					}
+				}
+			}
+			removeHits(count, false, px, py, pw, ph);
+
+			for (int n = 0; n < created.size; n++) {
+				addFree(created.x[n], created.y[n], created.w[n], created.h[n]);
+			}
+			if (capacity != null) {
+				updateLimits();
+			}
+		}
+
+		/**
+		 * Stores the slots of the free rectangles that may reach into [lo, hi]
+		 * along the grow axis in found, every slot for a fixed bin.
+		 */
+		private int near(float lo, float hi) {
+			int count;
+			if (index != null) {
+				count = index.query(lo, hi);
+				found = index.found;
+			} else {
+				count = free.size;
+				if (found.length < count) {
+					found = new int[Math.max(count, found.length * 2)];
+				}
+				for (int i = 0; i < count; i++) {
+					found[i] = i;
+				}
+			}
+			return count;
+		}
+
+		private int hit(int count, int slot) {
+			if (count == hits.length) {
+				hits = Arrays.copyOf(hits, count * 2);
+			}
+			hits[count] = slot;
+			return count + 1;
+		}
+
+		/**
+		 * Removes the free rectangles in the first count hits, in the order a
+		 * scan that moves the last rectangle into every emptied slot meets them,
+		 * so the free list is the same as after such a scan. With split set,
+		 * the maximal remainders of each around the placed rectangle go to
+		 * created; slivers narrower than the smallest box side can never be
+		 * used.
+		 */
+		private void removeHits(int count, boolean split, float px, float py, float pw, float ph) {
+			// a slot can be hit by several new rectangles
+			Arrays.sort(hits, 0, count);
+			int unique = 0;
+			for (int k = 0; k < count; k++) {
+				if (unique == 0 || hits[unique - 1] != hits[k]) {
+					hits[unique++] = hits[k];
+				}
+			}
+
+			int lo = 0;
+			int hi = unique - 1;
+			while (lo <= hi) {
+				int i = hits[lo++];
+				boolean next = true;
+				while (next) {
+					if (split) {
+						float fx = free.x[i], fy = free.y[i], fw = free.w[i], fh = free.h[i];
+						if (px - fx >= minSide) {
+							created.add(fx, fy, px - fx, fh);
+						}
+						if (fx + fw - (px + pw) >= minSide) {
+							created.add(px + pw, fy, fx + fw - (px + pw), fh);
+						}
+						if (py - fy >= minSide) {
+							created.add(fx, fy, fw, py - fy);
+						}
+						if (fy + fh - (py + ph) >= minSide) {
+							created.add(fx, py + ph, fw, fy + fh - (py + ph));
+						}
+					}
+					// the last rectangle moves into this slot, and is met next if hit too
+					int last = free.size - 1;
+					next = last != i && lo <= hi && hits[hi] == last;
+					if (next) {
+						hi--;
+					}
+					if (index != null) {
+						index.remove(i);
+						if (last != i) {
+							index.move(last, i);
+						}
+					}
+					if (last != i) {
+						summarize(i, last);
+					}
+					fits.removeLast();
+					free.remove(i);
+				}
+			}
+		}
+
+		private void addFree(float x, float y, float w, float h) {
+			if (index != null) {
+				index.add(free.size, growX ? x : y, growX ? w : h);
+			}
+			free.add(x, y, w, h);
+			fits.add();
+			summarize(free.size - 1, free.size - 1);
+		}
+
+		// Puts the sides and area of the free rectangle in slot from into the
+		// leaf of slot to, with a depth of 1 like flat bins
+		private void summarize(int to, int from) {
+			float w = free.w[from], h = free.h[from];
+			fits.update(to, Math.max(w, h), Math.min(w, h), 1, (double) w * h);
+		}
+
+		private void updateLimits() {
+			maxLongSide = 0;
+			maxShortSide = 0;
+			for (int i = 0; i < free.size; i++) {
+				maxLongSide = Math.max(maxLongSide, Math.max(free.w[i], free.h[i]));
+				maxShortSide = Math.max(maxShortSide, Math.min(free.w[i], free.h[i]));
+			}
+			// flat bins are summarized with a depth of 1, see BinCapacityTree
+			capacity.update(bin.index, maxLongSide, maxShortSide, 1, freeArea);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.binpacker.lib.solver;
+
+import java.util.Arrays;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Uniform grid over the placed boxes of a bin. A box is registered in every
+ * cell it touches, so cells may be smaller than the boxes and a few long ones
+ * do not make the whole grid coarse. Cells are indexed with the growing axis
+ * outermost so an unbounded bin only allocates the layers it actually
+ * reaches.
+ */
+class PlacementGrid {
+	// Upper bound for grid cells along a bounded axis
+	private static final int MAX_CELLS_PER_AXIS = 64;
+
+	private final float[] cell = new float[3];
+	private final int[] count = new int[3];
+	private final int outer;
+	private final int a;
+	private final int b;
+	private int[][] cells;
+	private int[] cellSizes;
+	// scratch cell coordinates, a grid is only used by one solve at a time
+	private final int[] from = new int[3];
+	private final int[] to = new int[3];
+	// visit stamps per placed box, so boxes spanning several cells count once
+	private int[] seen = new int[16];
+	private int epoch = 0;
+
+	// Cells are cellSize long on each axis, or longer where a bounded axis
+	// would need more than MAX_CELLS_PER_AXIS of them
+	PlacementGrid(Bin bin, int grow, float cellSize) {
+		float[] size = { bin.w, bin.h, bin.d };
+		for (int axis = 0; axis < 3; axis++) {
+			if (axis == grow) {
+				cell[axis] = cellSize;
+				count[axis] = 1;
+			} else {
+				cell[axis] = Math.max(cellSize, size[axis] / MAX_CELLS_PER_AXIS);
+				count[axis] = Math.max(1, (int) Math.ceil(size[axis] / cell[axis]));
+			}
+		}
+		outer = grow >= 0 ? grow : 0;
+		a = outer == 0 ? 1 : 0;
+		b = outer == 2 ? 1 : 2;
+		cells = new int[count[0] * count[1] * count[2]][];
+		cellSizes = new int[cells.length];
+	}
+
+	void add(int index, float[] lo, float[] hi) {
+		range(lo, hi);
+		ensureOuter(to[outer]);
+		for (int o = from[outer]; o <= to[outer]; o++) {
+			for (int i = from[a]; i <= to[a]; i++) {
+				for (int j = from[b]; j <= to[b]; j++) {
+					int c = (o * count[a] + i) * count[b] + j;
+					if (cells[c] == null) {
+						cells[c] = new int[4];
+					} else if (cellSizes[c] == cells[c].length) {
+						cells[c] = Arrays.copyOf(cells[c], cellSizes[c] * 2);
+					}
+					cells[c][cellSizes[c]++] = index;
+				}
+			}
+		}
+	}
+
+	boolean overlaps(PackingResult result, float[] lo, float[] hi) {
+		range(lo, hi);
+		int lastOuter = Math.min(to[outer], count[outer] - 1);
+		for (int o = from[outer]; o <= lastOuter; o++) {
+			for (int i = from[a]; i <= to[a]; i++) {
+				for (int j = from[b]; j <= to[b]; j++) {
+					int c = (o * count[a] + i) * count[b] + j;
+					for (int k = 0; k < cellSizes[c]; k++) {
+						int box = cells[c][k];
+						if (result.x[box] < hi[0] && result.x[box] + result.w[box] > lo[0] &&
+								result.y[box] < hi[1] && result.y[box] + result.h[box] > lo[1] &&
+								result.z[box] < hi[2] && result.z[box] + result.d[box] > lo[2]) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Moves a point towards zero along one axis until it reaches the far
+	 * face of a placed box whose cross-section contains the point, or the
+	 * wall.
+	 */
+	float project(PackingResult result, float[] point, int axis) {
+		int u = (axis + 1) % 3;
+		int v = (axis + 2) % 3;
+		int[] at = from;
+		for (int k = 0; k < 3; k++) {
+			at[k] = cellOf(point[k], k);
+		}
+		if (axis != outer && at[outer] >= count[outer]) {
+			return 0; // beyond every layer placed so far
+		}
+		float best = 0;
+		for (int step = Math.min(at[axis], count[axis] - 1); step >= 0; step--) {
+			at[axis] = step;
+			int c = (at[outer] * count[a] + at[a]) * count[b] + at[b];
+			for (int k = 0; k < cellSizes[c]; k++) {
+				int box = cells[c][k];
+				float far = low(result, box, axis) + extent(result, box, axis);
+				if (far <= point[axis] && far > best &&
+						low(result, box, u) <= point[u] && point[u] < low(result, box, u) + extent(result, box, u) &&
+						low(result, box, v) <= point[v] && point[v] < low(result, box, v) + extent(result, box, v)) {
+					best = far;
+				}
+			}
+			// boxes reaching above this cell are registered in it as well
+			if (best >= step * cell[axis]) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Length of the edges of the rectangle [lo, hi) that touch placed boxes,
+	 * measured in the xy plane. Used by 2D contact point scoring.
+	 */
+	float contactLength(PackingResult result, float[] lo, float[] hi) {
+		range(lo, hi);
+		if (seen.length < result.size) {
+			seen = new int[Math.max(result.size, seen.length * 2)];
+			epoch = 0;
+		}
+		epoch++;
+		float contact = 0;
+		int lastOuter = Math.min(to[outer], count[outer] - 1);
+		for (int o = from[outer]; o <= lastOuter; o++) {
+			for (int i = from[a]; i <= to[a]; i++) {
+				for (int j = from[b]; j <= to[b]; j++) {
+					int c = (o * count[a] + i) * count[b] + j;
+					for (int k = 0; k < cellSizes[c]; k++) {
+						int box = cells[c][k];
+						if (seen[box] == epoch) {
+							continue;
+						}
+						seen[box] = epoch;
+						float x1 = result.x[box], x2 = x1 + result.w[box];
+						float y1 = result.y[box], y2 = y1 + result.h[box];
+						if (x2 == lo[0] || x1 == hi[0]) {
+							contact += Math.max(0, Math.min(hi[1], y2) - Math.max(lo[1], y1));
+						}
+						if (y2 == lo[1] || y1 == hi[1]) {
+							contact += Math.max(0, Math.min(hi[0], x2) - Math.max(lo[0], x1));
+						}
+					}
+				}
+			}
+		}
+		return contact;
+	}
+
+	private static float low(PackingResult result, int box, int axis) {
+		return axis == 0 ? result.x[box] : axis == 1 ? result.y[box] : result.z[box];
+	}
+
+	private static float extent(PackingResult result, int box, int axis) {
+		return axis == 0 ? result.w[box] : axis == 1 ? result.h[box] : result.d[box];
+	}
+
+	private void range(float[] lo, float[] hi) {
+		for (int k = 0; k < 3; k++) {
+			from[k] = cellOf(lo[k], k);
+			to[k] = cellOf(hi[k], k);
+		}
+	}
+
+	private int cellOf(float value, int axis) {
+		int c = Math.max(0, (int) (value / cell[axis]));
+		return axis == outer ? c : Math.min(c, count[axis] - 1);
+	}
+
+	private void ensureOuter(int layer) {
+		if (layer < count[outer]) {
+			return;
+		}
+		int layers = Math.max(layer + 1, count[outer] * 2);
+		int layerSize = count[a] * count[b];
+		cells = Arrays.copyOf(cells, layers * layerSize);
+		cellSizes = Arrays.copyOf(cellSizes, layers * layerSize);
+		count[outer] = layers;
+	}
+}
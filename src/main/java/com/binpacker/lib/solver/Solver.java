@@ -4,7 +4,38 @@ import java.util.List;
 
 import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
 
 public interface Solver {
-	List<List<Box>> solve(List<Box> boxes, Bin bin, boolean growingBin, String growAxis);
+	// Packs the boxes of the problem in the given order of box indices. The
+	// problem is only read, so one problem can be packed from many threads.
+	PackingResult pack(PackingProblem problem, int[] order);
+
+	// Packs into the reusable buffers of the workspace instead of allocating
+	// new ones. The result belongs to the workspace and is only valid until
+	// its next pack. Solvers without workspace support pack as usual.
+	default PackingResult pack(PackingProblem problem, int[] order, SolverWorkspace workspace) {
+		return pack(problem, order);
+	}
+
+	// Identifies the solver and every setting that changes its packings, so
+	// packings of differently configured solvers are not mixed up. Defaults
+	// to the class name, a solver with settings appends those that differ
+	// from its defaults.
+	default String descriptor() {
+		return getClass().getName();
+	}
+
+	default PackingResult pack(List<Box> boxes, Bin bin, boolean growingBin, String growAxis) {
+		int[] order = new int[boxes.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		return pack(PackingProblem.of(boxes, bin, growingBin, growAxis), order);
+	}
+
+	default List<List<Box>> solve(List<Box> boxes, Bin bin, boolean growingBin, String growAxis) {
+		return pack(boxes, bin, growingBin, growAxis).toBins();
+	}
 }
@@ -0,0 +1,131 @@
+package com.binpacker.lib.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.BinCapacityTree;
+import com.binpacker.lib.common.FreeSpaceIndex;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.SpaceArena;
+
+/**
+ * Buffers a solve packs into, cleared and reused by the next solve: the bins
+ * with their free space lists, the bin summary tree, the free space index,
+ * the free spaces, the result arrays and an order array.
+ *
+ * A result packed into a workspace belongs to it and is only valid until the
+ * next pack with the same workspace, copy() it to keep it. A workspace must
+ * only be used by one thread at a time. acquire() hands out the workspace of
+ * the current thread, or a private one when the thread's workspace is in use.
+ */
+public final class SolverWorkspace {
+
+	private static final ThreadLocal<SolverWorkspace> LOCAL = ThreadLocal.withInitial(SolverWorkspace::new);
+
+	// Bins and placements kept on release, larger buffers are dropped
+	private static final int MAX_RETAINED_BINS = 1 << 12;
+	private static final int MAX_RETAINED_BOXES = 1 << 16;
+
+	final SpaceArena arena = new SpaceArena();
+	final List<Bin> activeBins = new ArrayList<>();
+	// every bin created so far, the first binCount are in use
+	private final List<Bin> bins = new ArrayList<>();
+	private int binCount = 0;
+	private BinCapacityTree capacity = new BinCapacityTree();
+	private FreeSpaceIndex spaceIndex = new FreeSpaceIndex();
+	private PackingResult result = new PackingResult();
+	private int[] order = new int[0];
+	private boolean inUse = false;
+
+	public static SolverWorkspace acquire() {
+		SolverWorkspace workspace = LOCAL.get();
+		if (workspace.inUse) {
+			workspace = new SolverWorkspace();
+		}
+		workspace.inUse = true;
+		return workspace;
+	}
+
+	// Makes the workspace of this thread available again, trimming buffers
+	// a very large solve left behind
+	public void release() {
+		arena.release();
+		activeBins.clear();
+		if (bins.size() > MAX_RETAINED_BINS) {
+			bins.subList(MAX_RETAINED_BINS, bins.size()).clear();
+			capacity = new BinCapacityTree();
+			spaceIndex = new FreeSpaceIndex();
+		}
+		binCount = 0;
+		if (result.ids.length > MAX_RETAINED_BOXES) {
+			result = new PackingResult();
+		}
+		if (order.length > MAX_RETAINED_BOXES) {
+			order = new int[0];
+		}
+		inUse = false;
+	}
+
+	/**
+	 * The order as an index array, in a buffer reused by the next call. The
+	 * array is only valid until then.
+	 */
+	public int[] order(List<Integer> order) {
+		if (this.order.length != order.size()) {
+			this.order = new int[order.size()];
+		}
+		for (int i = 0; i < this.order.length; i++) {
+			this.order[i] = order.get(i);
+		}
+		return this.order;
+	}
+
+	// Clears everything for a solve of up to capacity boxes, earlier results
+	// become invalid
+	void begin(int capacity) {
+		arena.release();
+		activeBins.clear();
+		binCount = 0;
+		this.capacity.clear();
+		spaceIndex.clear();
+		if (result.ids.length < capacity) {
+			result = new PackingResult(capacity);
+		}
+		result.clear();
+	}
+
+	// An empty bin with a single free space, reusing the bins of earlier solves
+	Bin openBin(int index, float w, float h, float d) {
+		Bin bin;
+		if (binCount < bins.size()) {
+			bin = bins.get(binCount);
+			bin.index = index;
+			bin.w = w;
+			bin.h = h;
+			bin.d = d;
+			bin.usedVolume = 0;
+			bin.utilCounter = 0;
+			bin.boxes.clear();
+			bin.freeSpaces.clear();
+			bin.freeSpaces.add(arena.allocate(0, 0, 0, w, h, d));
+		} else {
+			bin = new Bin(index, w, h, d);
+			bins.add(bin);
+		}
+		binCount++;
+		return bin;
+	}
+
+	BinCapacityTree capacity() {
+		return capacity;
+	}
+
+	FreeSpaceIndex spaceIndex() {
+		return spaceIndex;
+	}
+
+	PackingResult result() {
+		return result;
+	}
+}
@@ -0,0 +1,221 @@
+package com.binpacker.lib.solver;
+
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingProblem.GrowAxis;
+import com.binpacker.lib.common.PackingResult;
+
+/**
+ * Growing bin strategy for the extreme point and MOAB solvers: instead of
+ * packing into a bin that is unbounded along the grow axis, it searches for
+ * the shortest finite strip the solver packs every box into.
+ *
+ * The search starts at a lower bound, the larger of the volume of all boxes
+ * over the cross section and the length of the longest box in its shortest
+ * orientation that fits the cross section. The length is bisected between
+ * the longest failed and the shortest packed length down to a 1% gap. A
+ * feasibility decode stops at the first box that does not fit the strip.
+ * Heuristic packings are not monotone in the strip length, so the shortest
+ * packing seen is returned, measured by how far its boxes reach.
+ *
+ * The solver's own packing into the unbounded bin is one of the candidates
+ * when it places every box in one bin, so the result is never longer than
+ * it, and then the search bisects below it right away. A packing that leaves
+ * boxes out is never chosen over a complete one. Without one the length
+ * doubles until a strip takes every box, and the unbounded packing is only
+ * returned when no strip up to twice the length of all boxes stacked end to
+ * end does. Problems with fixed bins are passed to the solver unchanged.
+ *
+ * Every probe costs about one decode, so a search costs several. Other
+ * solvers are not supported: the guillotine first fit solvers rarely fit a
+ * strip at all, and the 2D solvers shorten strips by 1% at most.
+ */
+public class StripSearch implements Solver {
+
+	// Bisection steps, and the relative gap at which the search stops early
+	private static final int MAX_STEPS = 24;
+	private static final double TOLERANCE = 0.01;
+
+	private final Solver solver;
+
+	public StripSearch(Solver solver) {
+		if (!supports(solver)) {
+			throw new IllegalArgumentException("Strip search does not support " + solver.descriptor());
+		}
+		this.solver = solver;
+	}
+
+	// Solvers the search reliably shortens strips for
+	public static boolean supports(Solver solver) {
+		return solver instanceof ExtremePoint3D || solver instanceof MOAB;
+	}
+
+	public Solver getSolver() {
+		return solver;
+	}
+
+	@Override
+	public String descriptor() {
+		return getClass().getName() + "(" + solver.descriptor() + ")";
+	}
+
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order) {
+		if (!problem.isGrowing()) {
+			return solver.pack(problem, order);
+		}
+		SolverWorkspace workspace = SolverWorkspace.acquire();
+		try {
+			return pack(problem, order, workspace).copy();
+		} finally {
+			workspace.release();
+		}
+	}
+
+	// Probes pack into the workspace, which may also hold the result
+	@Override
+	public PackingResult pack(PackingProblem problem, int[] order, SolverWorkspace workspace) {
+		if (!problem.isGrowing()) {
+			return solver.pack(problem, order, workspace);
+		}
+
+		GrowAxis axis = problem.growAxis();
+		float[] bounds = bounds(problem, order, axis);
+		float lower = bounds[0];
+		if (Float.isNaN(lower) || lower <= 0) {
+			// nothing to pack, or a box wider than the cross section
+			return solver.pack(problem, order, workspace);
+		}
+
+		// a complete unbounded packing bounds the search from above, and no
+		// strip can beat one that reaches the lower bound
+		PackingResult unbounded = solver.pack(problem, order, workspace);
+		boolean complete = complete(unbounded, order);
+		float unboundedLength = complete ? extent(unbounded, axis) : Float.MAX_VALUE;
+		if (complete && unboundedLength - lower <= unboundedLength * TOLERANCE) {
+			return unbounded;
+		}
+		// probes reuse the workspace
+		unbounded = unbounded.copy();
+
+		PackingResult best = complete ? unbounded : null;
+		float bestLength = unboundedLength;
+		// longest length known not to take every box
+		float failed = lower;
+		float length = lower;
+		// without one, double the length until everything fits
+		while (best == null) {
+			PackingResult packed = probe(problem, order, axis, length, workspace);
+			if (packed != null) {
+				best = packed.copy();
+				bestLength = extent(best, axis);
+			} else if (length > 2 * bounds[1]) {
+				// no complete packing at all, the solver's own is all there is
+				return unbounded;
+			} else {
+				failed = length;
+				length *= 2;
+			}
+		}
+
+		// bisect between the longest failed and the shortest packed length
+		for (int step = 0; step < MAX_STEPS && bestLength - failed > bestLength * TOLERANCE; step++) {
+			length = (failed + bestLength) / 2;
+			PackingResult packed = probe(problem, order, axis, length, workspace);
+			if (packed == null) {
+				failed = length;
+				continue;
+			}
+			// the boxes stay within the strip, so this is always tighter
+			best = packed.copy();
+			bestLength = extent(best, axis);
+		}
+		return best;
+	}
+
+	// Every box placed, all in the one bin
+	private static boolean complete(PackingResult result, int[] order) {
+		return result.binCount == 1 && result.size == order.length;
+	}
+
+	// Packs into a fixed bin of the given length, null as soon as a box is left
+	// out or needs a second bin
+	private PackingResult probe(PackingProblem problem, int[] order, GrowAxis axis, float length,
+			SolverWorkspace workspace) {
+		PackingProblem strip = problem.withFixedBin(axis == GrowAxis.X ? length : problem.binW(),
+				axis == GrowAxis.Y ? length : problem.binH(), axis == GrowAxis.Z ? length : problem.binD());
+
+		if (solver instanceof IncrementalSolver) {
+			Decoder decoder = ((IncrementalSolver) solver).decoder(strip, order.length, workspace);
+			for (int index : order) {
+				decoder.add(index);
+				PackingResult result = decoder.result();
+				if (result.binCount > 1 || result.size < decoder.size()) {
+					return null;
+				}
+			}
+			return decoder.result();
+		}
+
+		PackingResult result = solver.pack(strip, order, workspace);
+		return complete(result, order) ? result : null;
+	}
+
+	/**
+	 * Lower bound on the strip length and the length of all boxes stacked end
+	 * to end, each in its shortest orientation that fits the cross section.
+	 * The lower bound is NaN when a box does not fit the section at all.
+	 */
+	private static float[] bounds(PackingProblem problem, int[] order, GrowAxis axis) {
+		// cross section, larger side first
+		float p, q;
+		switch (axis) {
+			case X:
+				p = problem.binH();
+				q = problem.binD();
+				break;
+			case Y:
+				p = problem.binW();
+				q = problem.binD();
+				break;
+			default:
+				p = problem.binW();
+				q = problem.binH();
+				break;
+		}
+		if (q > p) {
+			float t = p;
+			p = q;
+			q = t;
+		}
+
+		double measure = 0;
+		double stacked = 0;
+		float longest = 0;
+		for (int index : order) {
+			float a = problem.large(index), b = problem.middle(index), c = problem.small(index);
+			measure += problem.volume(index);
+			// the shortest edge along the axis whose other two fit the section
+			float shortest;
+			if (a <= p && b <= q) {
+				shortest = c;
+			} else if (a <= p && c <= q) {
+				shortest = b;
+			} else if (b <= p && c <= q) {
+				shortest = a;
+			} else {
+				shortest = Float.NaN;
+			}
+			if (Float.isNaN(shortest)) {
+				return new float[] { Float.NaN, Float.NaN };
+			}
+			longest = Math.max(longest, shortest);
+			stacked += shortest;
+		}
+
+		return new float[] { (float) Math.max(longest, measure / ((double) p * q)), (float) stacked };
+	}
+
+	private static float extent(PackingResult result, GrowAxis axis) {
+		return result.maxExtent(axis.key());
+	}
+}
@@ -0,0 +1,71 @@
+package com.binpacker.lib.common;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class BinCapacityTreeTest {
+
+	@Test
+	void testFirstFit() {
+		BinCapacityTree tree = new BinCapacityTree();
+		Bin full = new Bin(0, 10, 10, 10);
+		full.freeSpaces.clear();
+		full.freeSpaces.add(new Space(0, 0, 8, 10, 10, 2));
+		full.usedVolume = 800;
+		Bin empty = new Bin(1, 10, 10, 10);
+		Bin small = new Bin(2, 4, 4, 4);
+		tree.addBin(full);
+		tree.addBin(empty);
+		tree.addBin(small);
+
+		Box flat = new Box(new Point3f(0, 0, 0), new Point3f(2, 9, 9));
+		Box cube = new Box(new Point3f(0, 0, 0), new Point3f(3, 3, 3));
+		Box large = new Box(new Point3f(0, 0, 0), new Point3f(11, 1, 1));
+
+		// a flat box fits the remaining slab of the first bin in some orientation
+		assertEquals(0, tree.firstFit(0, flat));
+		// the cube is too thick for the slab
+		assertEquals(1, tree.firstFit(0, cube));
+		assertEquals(2, tree.firstFit(2, cube));
+		assertEquals(-1, tree.firstFit(0, large));
+
+		// filling the second bin moves the cube on to the third
+		empty.freeSpaces.clear();
+		empty.usedVolume = 1000;
+		tree.update(empty);
+		assertEquals(2, tree.firstFit(0, cube));
+	}
+
+	@Test
+	void testAllFitsMatchesFirstFit() {
+		BinCapacityTree tree = new BinCapacityTree();
+		Random random = new Random(3);
+		for (int round = 0; round < 200; round++) {
+			// rectangles as flat bins, leaves come and go like free rectangles
+			if (tree.size() > 0 && random.nextInt(3) == 0) {
+				tree.removeLast();
+			} else {
+				tree.add();
+				float w = 1 + random.nextInt(20), h = 1 + random.nextInt(20);
+				tree.update(tree.size() - 1, Math.max(w, h), Math.min(w, h), 1, w * h);
+			}
+
+			float a = 1 + random.nextInt(20), b = 1 + random.nextInt(20);
+			float longSide = Math.max(a, b), shortSide = Math.min(a, b);
+			List<Integer> expected = new ArrayList<>();
+			for (int bin = tree.firstFit(0, longSide, shortSide, 1); bin >= 0; bin = tree.firstFit(bin + 1,
+					longSide, shortSide, 1)) {
+				expected.add(bin);
+			}
+			List<Integer> actual = new ArrayList<>();
+			for (int k = 0, n = tree.allFits(longSide, shortSide, 1); k < n; k++) {
+				actual.add(tree.found(k));
+			}
+			assertEquals(expected, actual);
+		}
+	}
+}
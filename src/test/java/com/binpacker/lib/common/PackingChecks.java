@@ -0,0 +1,116 @@
+package com.binpacker.lib.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assertions on packings of any size, shared by the solver and stress tests.
+ */
+public final class PackingChecks {
+
+	private PackingChecks() {
+	}
+
+	/**
+	 * Checks that every box was placed once with its own dimensions in some
+	 * orientation, inside the bin and overlapping no other box. Flat bins
+	 * (depth 0) are only checked in x and y, a growing bin is not bounded
+	 * along its axis.
+	 */
+	public static void assertValid(PackingResult result, List<Box> boxes, Bin bin, boolean growingBin,
+			String growAxis) {
+		assertEquals(boxes.size(), result.size, "placed boxes");
+
+		Map<Integer, Box> byId = new HashMap<>();
+		for (Box box : boxes) {
+			byId.put(box.id, box);
+		}
+		boolean[] seen = new boolean[boxes.size()];
+		Map<Integer, Integer> indexById = new HashMap<>();
+		for (int i = 0; i < boxes.size(); i++) {
+			indexById.put(boxes.get(i).id, i);
+		}
+
+		float limitW = growingBin && "x".equals(growAxis) ? Float.MAX_VALUE : bin.w;
+		float limitH = growingBin && !"x".equals(growAxis) && !"z".equals(growAxis) ? Float.MAX_VALUE : bin.h;
+		float limitD = bin.d == 0 || (growingBin && "z".equals(growAxis)) ? Float.MAX_VALUE : bin.d;
+
+		for (int i = 0; i < result.size; i++) {
+			int id = result.ids[i];
+			Box box = byId.get(id);
+			assertNotNull(box, "unknown box id " + id);
+			int index = indexById.get(id);
+			assertFalse(seen[index], "box " + id + " placed twice");
+			seen[index] = true;
+
+			float[] placed = { result.w[i], result.h[i], result.d[i] };
+			float[] size = { box.size.x, box.size.y, box.size.z };
+			Arrays.sort(placed);
+			Arrays.sort(size);
+			assertArrayEquals(size, placed);
+
+			assertTrue(result.bins[i] >= 0 && result.bins[i] < result.binCount, "box " + id + " in unknown bin");
+			assertTrue(result.x[i] >= 0 && result.y[i] >= 0 && result.z[i] >= 0, "box " + id + " below the origin");
+			assertTrue(result.x[i] + result.w[i] <= limitW && result.y[i] + result.h[i] <= limitH
+					&& result.z[i] + result.d[i] <= limitD, "box " + id + " sticks out of its bin");
+		}
+
+		assertNoOverlap(result);
+	}
+
+	/**
+	 * Sweeps the boxes of every bin along its longest axis, so only boxes
+	 * sharing a slice of that axis are compared.
+	 */
+	public static void assertNoOverlap(PackingResult result) {
+		List<List<Integer>> perBin = new ArrayList<>();
+		for (int b = 0; b < result.binCount; b++) {
+			perBin.add(new ArrayList<>());
+		}
+		for (int i = 0; i < result.size; i++) {
+			perBin.get(result.bins[i]).add(i);
+		}
+
+		for (List<Integer> members : perBin) {
+			float[] lo = new float[3];
+			float[] hi = new float[3];
+			for (int i : members) {
+				lo[0] = Math.min(lo[0], result.x[i]);
+				lo[1] = Math.min(lo[1], result.y[i]);
+				lo[2] = Math.min(lo[2], result.z[i]);
+				hi[0] = Math.max(hi[0], result.x[i] + result.w[i]);
+				hi[1] = Math.max(hi[1], result.y[i] + result.h[i]);
+				hi[2] = Math.max(hi[2], result.z[i] + result.d[i]);
+			}
+			int axis = 0;
+			for (int a = 1; a < 3; a++) {
+				if (hi[a] - lo[a] > hi[axis] - lo[axis]) {
+					axis = a;
+				}
+			}
+			float[] start = axis == 0 ? result.x : axis == 1 ? result.y : result.z;
+			float[] length = axis == 0 ? result.w : axis == 1 ? result.h : result.d;
+
+			members.sort((a, b) -> Float.compare(start[a], start[b]));
+			List<Integer> active = new ArrayList<>();
+			for (int i : members) {
+				active.removeIf(j -> start[j] + length[j] <= start[i]);
+				for (int j : active) {
+					assertFalse(overlaps(result, i, j), "boxes " + result.ids[i] + " and " + result.ids[j] + " overlap");
+				}
+				active.add(i);
+			}
+		}
+	}
+
+	private static boolean overlaps(PackingResult result, int i, int j) {
+		return result.x[i] < result.x[j] + result.w[j] && result.x[j] < result.x[i] + result.w[i]
+				&& result.y[i] < result.y[j] + result.h[j] && result.y[j] < result.y[i] + result.h[i]
+				&& result.z[i] < result.z[j] + result.d[j] && result.z[j] < result.z[i] + result.d[i];
+	}
+}
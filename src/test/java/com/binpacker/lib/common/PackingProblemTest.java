@@ -0,0 +1,47 @@
+package com.binpacker.lib.common;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.solver.FirstFit3D;
+
+class PackingProblemTest {
+
+	@Test
+	void testPrecomputedBoxData() {
+		List<Box> boxes = new ArrayList<>();
+		boxes.add(new Box(7, new Point3f(0, 0, 0), new Point3f(2, 5, 3)));
+		PackingProblem problem = PackingProblem.of(boxes, new Bin(0, 10, 20, 30), true, "z");
+
+		assertEquals(1, problem.size());
+		assertEquals(7, problem.id(0));
+		assertEquals(30.0, problem.volume(0));
+		assertEquals(5, problem.large(0));
+		assertEquals(3, problem.middle(0));
+		assertEquals(2, problem.small(0));
+
+		// only the grow axis is unbounded
+		assertEquals(PackingProblem.GrowAxis.Z, problem.growAxis());
+		assertEquals(10, problem.packW());
+		assertEquals(20, problem.packH());
+		assertEquals(Integer.MAX_VALUE, problem.packD());
+	}
+
+	@Test
+	void testSolveLeavesBinUntouched() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(4, 4, 4)));
+		}
+		Bin bin = new Bin(0, 10, 10, 10);
+
+		new FirstFit3D().pack(boxes, bin, true, "y");
+
+		assertEquals(10, bin.w);
+		assertEquals(10, bin.h);
+		assertEquals(10, bin.d);
+	}
+}
@@ -0,0 +1,35 @@
+package com.binpacker.lib.common;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class PackingResultTest {
+
+	@Test
+	void testToBins() {
+		PackingResult result = new PackingResult(1);
+		int first = result.addBin();
+		int second = result.addBin();
+		result.add(1, first, 0, 0, 0, 2, 2, 2);
+		result.add(2, second, 0, 0, 0, 3, 3, 3);
+		result.add(3, first, 2, 0, 0, 1, 1, 1);
+
+		List<List<Box>> bins = result.toBins();
+
+		// boxes are grouped per bin in placement order
+		assertEquals(2, bins.size());
+		assertEquals(2, bins.get(0).size());
+		assertEquals(1, bins.get(1).size());
+		assertEquals(1, bins.get(0).get(0).id);
+		assertEquals(3, bins.get(0).get(1).id);
+		assertEquals(2, bins.get(1).get(0).id);
+		assertEquals(2.0f, bins.get(0).get(1).position.x);
+
+		// the view is cached until the result changes
+		assertSame(bins, result.toBins());
+		result.add(4, second, 3, 0, 0, 1, 1, 1);
+		assertEquals(2, result.toBins().get(1).size());
+	}
+}
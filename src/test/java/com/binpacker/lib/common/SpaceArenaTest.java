@@ -0,0 +1,26 @@
+package com.binpacker.lib.common;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceArenaTest {
+
+	@Test
+	void testReusesSpacesAfterRelease() {
+		SpaceArena arena = new SpaceArena();
+		Space first = arena.allocate(0, 0, 0, 1, 1, 1);
+		Space second = arena.allocate(1, 0, 0, 2, 2, 2);
+		arena.release();
+
+		Space reused = arena.allocate(5, 6, 7, 8, 9, 10);
+		assertSame(first, reused);
+		assertEquals(5, reused.x);
+		assertEquals(10, reused.d);
+
+		// recycled spaces are handed out before unused ones
+		arena.recycle(reused);
+		assertSame(reused, arena.allocate(0, 0, 0, 1, 1, 1));
+		assertSame(second, arena.allocate(0, 0, 0, 1, 1, 1));
+		arena.release();
+	}
+}
@@ -0,0 +1,66 @@
+package com.binpacker.lib.optimizer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingChecks;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Workload;
+import com.binpacker.lib.solver.FirstFit3D;
+
+/**
+ * Runs a short genetic search over large uniform workloads, so the seeding,
+ * local search and breeding around the solver are covered at the same sizes
+ * as the solver stress test. Excluded from the regular test run, run it with
+ * {@code ./gradlew stressTest}.
+ *
+ * Population 4 and two generations with FirstFit3D took 2.8 s for 10k boxes
+ * and 143 s for 100k on a single core. 1M is skipped, a single evaluation
+ * then takes about as long as the whole 100k run.
+ */
+@Tag("stress")
+class GAOptimizerStressTest {
+
+	private static final Bin BIN = new Bin(0, 100, 100, 100);
+	private static final int LIMIT = 100_000;
+
+	@Test
+	void testShortRun() {
+		for (int size : sizes()) {
+			if (size > LIMIT) {
+				System.out.printf("GAOptimizer %d: skipped, above the known limit%n", size);
+				continue;
+			}
+
+			List<Box> boxes = Workload.boxes(Workload.Shape.UNIFORM, size, BIN, 20240601L);
+			long start = System.nanoTime();
+			GAOptimizer optimizer = new GAOptimizer();
+			optimizer.setSeed(42);
+			optimizer.initialize(new FirstFit3D(), boxes, BIN, false, "y", 4, 2);
+			PackingResult best = null;
+			for (int i = 0; i < 2; i++) {
+				best = optimizer.executeNextGeneration();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.printf("GAOptimizer %d: %.2f s, %d bins%n", size, seconds, best.binCount);
+			assertTrue(seconds <= (size <= 10_000 ? 60 : 300),
+					"GAOptimizer took " + seconds + " s for " + size + " boxes");
+			PackingChecks.assertValid(best, boxes, BIN, false, "y");
+		}
+	}
+
+	private static List<Integer> sizes() {
+		List<Integer> sizes = new ArrayList<>();
+		for (String size : System.getProperty("stress.sizes", "10000,100000,1000000").split(",")) {
+			sizes.add(Integer.parseInt(size.trim()));
+		}
+		return sizes;
+	}
+}
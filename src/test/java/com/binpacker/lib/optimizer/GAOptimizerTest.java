@@ -0,0 +1,350 @@
+package com.binpacker.lib.optimizer;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingChecks;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.FirstFit3D;
+import com.binpacker.lib.solver.Solver;
+
+class GAOptimizerTest {
+
+	@Test
+	void testSeededRunsAreReproducible() {
+		List<Box> boxes = randomBoxes();
+
+		PackingResult first = run(boxes, 42);
+		PackingResult second = run(boxes, 42);
+
+		// same seed gives the same best packing, box by box
+		assertSamePacking(first, second);
+	}
+
+	@Test
+	void testBreedingDoesNotDependOnThreads() {
+		List<Box> boxes = randomBoxes();
+		PackingResult single = null;
+		PackingResult parallel = null;
+
+		ExecutorService one = Executors.newSingleThreadExecutor();
+		ExecutorService four = Executors.newFixedThreadPool(4);
+		try {
+			GAOptimizer first = new GAOptimizer();
+			first.setExecutor(one);
+			GAOptimizer second = new GAOptimizer();
+			second.setExecutor(four);
+			for (GAOptimizer optimizer : List.of(first, second)) {
+				optimizer.setSeed(42);
+				optimizer.initialize(new FirstFit3D(), boxes, new Bin(0, 8, 8, 8), false, "x", 12, 3);
+			}
+			for (int i = 0; i < 5; i++) {
+				single = first.executeNextGeneration();
+				parallel = second.executeNextGeneration();
+			}
+		} finally {
+			one.shutdown();
+			four.shutdown();
+		}
+
+		// children are bred and evaluated concurrently, in any order
+		assertSamePacking(single, parallel);
+	}
+
+	@Test
+	void testSteadyStateKeepsBestOrder() {
+		List<Box> boxes = randomBoxes();
+		Bin bin = new Bin(0, 8, 8, 8);
+
+		// the first generation reports the best of the initial population
+		GAOptimizer generational = new GAOptimizer();
+		generational.setSeed(42);
+		generational.initialize(new FirstFit3D(), boxes, bin, false, "x", 12, 3);
+		generational.executeNextGeneration();
+		double initialBest = generational.getBestScore();
+
+		GAOptimizer optimizer = new GAOptimizer();
+		optimizer.setSeed(42);
+		optimizer.initialize(new FirstFit3D(), boxes, bin, false, "x", 12, 3);
+		PackingResult best = optimizer.runSteadyState(200, 0);
+		assertTrue(optimizer.getBestScore() >= initialBest);
+		PackingChecks.assertValid(best, boxes, bin, false, "x");
+
+		// generations continue from the steady state population
+		PackingResult next = optimizer.executeNextGeneration();
+		assertTrue(optimizer.getBestScore() >= initialBest);
+		PackingChecks.assertValid(next, boxes, bin, false, "x");
+	}
+
+	@Test
+	void testResumeContinuesRun() throws Exception {
+		List<Box> boxes = randomBoxes();
+		PackingResult uninterrupted = run(boxes, 42);
+
+		Path file = Files.createTempFile("optimizer", ".ckpt");
+		try {
+			GAOptimizer optimizer = optimizer(boxes, 42);
+			optimizer.setCheckpoint(file, 3);
+			for (int i = 0; i < 3; i++) {
+				optimizer.executeNextGeneration();
+			}
+			optimizer.awaitCheckpoint();
+
+			// a fresh optimizer picks up after generation 3
+			GAOptimizer resumed = optimizer(boxes, 1);
+			resumed.resume(file);
+			assertEquals(3, resumed.getGeneration());
+			PackingResult best = null;
+			for (int i = 3; i < 5; i++) {
+				best = resumed.executeNextGeneration();
+			}
+			assertSamePacking(uninterrupted, best);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void testPublisherStopsOnCancel() throws Exception {
+		GAOptimizer optimizer = optimizer(randomBoxes(), 42);
+		ProgressPublisher publisher = optimizer.publish(100000);
+		CountDownLatch received = new CountDownLatch(2);
+
+		publisher.subscribe(new Flow.Subscriber<GenerationReport>() {
+			private Flow.Subscription subscription;
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+
+			@Override
+			public void onNext(GenerationReport report) {
+				received.countDown();
+				if (report.generation >= 2) {
+					subscription.cancel();
+				} else {
+					subscription.request(1);
+				}
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+
+		assertTrue(received.await(30, TimeUnit.SECONDS));
+		// the only subscriber cancelled, so the run ends long before 100000
+		assertTrue(publisher.awaitStop(30, TimeUnit.SECONDS));
+		assertTrue(optimizer.getGeneration() < 100000);
+	}
+
+	@Test
+	void testSeedByIdsMapsChangedManifest() {
+		List<Box> boxes = new ArrayList<>();
+		boxes.add(new Box(10, new Point3f(0, 0, 0), new Point3f(2, 2, 2)));
+		boxes.add(new Box(11, new Point3f(0, 0, 0), new Point3f(1, 1, 1)));
+		boxes.add(new Box(12, new Point3f(0, 0, 0), new Point3f(3, 3, 3)));
+		boxes.add(new Box(13, new Point3f(0, 0, 0), new Point3f(1, 1, 2)));
+
+		GAOptimizer optimizer = new GAOptimizer();
+		// yesterday's order, box 99 is gone and box 12 is new
+		optimizer.addSeedByIds(List.of(11, 99, 10, 13));
+		optimizer.initialize(new FirstFit3D(), boxes, new Bin(0, 8, 8, 8), false, "x", 8, 2);
+
+		// the new, largest box goes before the first smaller seeded box
+		assertEquals(List.of(2, 1, 0, 3), optimizer.boxOrders.get(optimizer.boxOrders.size() - 1));
+	}
+
+	@Test
+	void testDisabledScreeningLeavesRunUnchanged() {
+		List<Box> boxes = randomBoxes();
+		PackingResult expected = run(boxes, 42);
+
+		// a prefix of 0 or keeping every child both turn screening off
+		for (double[] setting : new double[][] { { 0, 0.5 }, { 20, 1.0 } }) {
+			GAOptimizer optimizer = optimizer(boxes, 42);
+			optimizer.setScreening((int) setting[0], setting[1]);
+			PackingResult best = null;
+			for (int i = 0; i < 5; i++) {
+				best = optimizer.executeNextGeneration();
+			}
+			assertSamePacking(expected, best);
+			assertEquals(0, optimizer.getScreenedChildren());
+		}
+	}
+
+	@Test
+	void testScreeningAuditCountsMissedChildren() {
+		List<Box> boxes = randomBoxes();
+		GAOptimizer optimizer = new GAOptimizer();
+		optimizer.setSeed(42);
+		// a short prefix says little about the whole order, so the default 5%
+		// audit finds discarded children that would have made the elite
+		optimizer.setScreening(6, 0.25);
+		optimizer.initialize(new FirstFit3D(), boxes, new Bin(0, 8, 8, 8), true, "y", 40, 4);
+		for (int i = 0; i < 10; i++) {
+			optimizer.executeNextGeneration();
+		}
+
+		// the first generation has no elites to exempt, later ones carry 4
+		assertEquals(40 + 9 * 36, optimizer.getScreenedChildren());
+		assertEquals(30 + 9 * 27, optimizer.getDiscardedChildren());
+		assertTrue(optimizer.getAuditedChildren() > 0);
+		assertTrue(optimizer.getAuditedChildren() < optimizer.getDiscardedChildren());
+		assertTrue(optimizer.getMissedElites() > 0);
+		assertTrue(optimizer.getMissedWinners() > 0);
+		// beating the best child also beats the last elite
+		assertTrue(optimizer.getMissedWinners() <= optimizer.getMissedElites());
+		assertTrue(optimizer.getMissedElites() <= optimizer.getAuditedChildren());
+	}
+
+	@Test
+	void testFailedDecodeFailsGeneration() {
+		List<Box> boxes = randomBoxes();
+		GAOptimizer optimizer = new GAOptimizer();
+		optimizer.setSeed(42);
+		// fails in the evaluations pipelined with the first breeding
+		optimizer.initialize(new FailingSolver(15), boxes, new Bin(0, 8, 8, 8), false, "x", 12, 3);
+		optimizer.executeNextGeneration();
+
+		IllegalStateException failure = assertThrows(IllegalStateException.class,
+				() -> optimizer.executeNextGeneration());
+		assertEquals("decode failed", failure.getMessage());
+		// a failed task is no interrupt
+		assertFalse(Thread.interrupted());
+	}
+
+	@Test
+	void testFailedScreeningFailsGeneration() {
+		List<Box> boxes = randomBoxes();
+		GAOptimizer optimizer = new GAOptimizer();
+		optimizer.setSeed(42);
+		optimizer.setScreening(4, 0.5);
+		// only the packs of screened prefixes fail
+		Solver screenFails = new Solver() {
+			private final Solver solver = new FirstFit3D();
+
+			@Override
+			public PackingResult pack(PackingProblem problem, int[] order) {
+				if (order.length == 4) {
+					throw new IllegalStateException("decode failed");
+				}
+				return solver.pack(problem, order);
+			}
+		};
+		optimizer.initialize(screenFails, boxes, new Bin(0, 8, 8, 8), false, "x", 12, 3);
+		IllegalStateException failure = assertThrows(IllegalStateException.class, () -> {
+			for (int i = 0; i < 5; i++) optimizer.executeNextGeneration();
+		});
+		assertEquals("decode failed", failure.getMessage());
+		assertFalse(Thread.interrupted());
+	}
+
+	@Test
+	void testFailedLocalSearchFailsGeneration() {
+		List<Box> boxes = randomBoxes();
+		GAOptimizer optimizer = new GAOptimizer();
+		optimizer.setSeed(42);
+		optimizer.setLocalSearch(2, 20);
+		// fails in the local search of the first generation
+		optimizer.initialize(new FailingSolver(30), boxes, new Bin(0, 8, 8, 8), false, "x", 12, 3);
+		IllegalStateException failure = assertThrows(IllegalStateException.class,
+				() -> optimizer.executeNextGeneration());
+		assertEquals("decode failed", failure.getMessage());
+		assertFalse(Thread.interrupted());
+	}
+
+	@Test
+	void testFailedWorkerFailsSteadyState() {
+		List<Box> boxes = randomBoxes();
+		// fails while breeding, then already in the initial evaluation
+		for (int packs : new int[] { 30, 5 }) {
+			GAOptimizer optimizer = new GAOptimizer();
+			optimizer.setSeed(42);
+			optimizer.initialize(new FailingSolver(packs), boxes, new Bin(0, 8, 8, 8), false, "x", 12, 3);
+			IllegalStateException failure = assertThrows(IllegalStateException.class,
+					() -> optimizer.runSteadyState(1000, 0));
+			assertEquals("decode failed", failure.getMessage());
+			assertFalse(Thread.interrupted());
+		}
+	}
+
+	private List<Box> randomBoxes() {
+		List<Box> boxes = new ArrayList<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 60; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0),
+					new Point3f(1 + random.nextInt(4), 1 + random.nextInt(4), 1 + random.nextInt(4))));
+		}
+		return boxes;
+	}
+
+	private void assertSamePacking(PackingResult first, PackingResult second) {
+		assertEquals(first.size, second.size);
+		assertEquals(first.binCount, second.binCount);
+		for (int i = 0; i < first.size; i++) {
+			assertEquals(first.ids[i], second.ids[i]);
+			assertEquals(first.bins[i], second.bins[i]);
+			assertEquals(first.x[i], second.x[i]);
+			assertEquals(first.y[i], second.y[i]);
+			assertEquals(first.z[i], second.z[i]);
+		}
+	}
+
+	private GAOptimizer optimizer(List<Box> boxes, long seed) {
+		GAOptimizer optimizer = new GAOptimizer();
+		optimizer.setSeed(seed);
+		optimizer.setLocalSearch(2, 20);
+		optimizer.initialize(new FirstFit3D(), boxes, new Bin(0, 8, 8, 8), false, "x", 12, 3);
+		return optimizer;
+	}
+
+	private PackingResult run(List<Box> boxes, long seed) {
+		GAOptimizer optimizer = optimizer(boxes, seed);
+		PackingResult best = null;
+		for (int i = 0; i < 5; i++) {
+			best = optimizer.executeNextGeneration();
+		}
+		return best;
+	}
+
+	// Packs like first fit until it has packed the given number of orders
+	private static class FailingSolver implements Solver {
+		private final AtomicInteger remaining;
+		private final Solver solver = new FirstFit3D();
+
+		FailingSolver(int packs) {
+			remaining = new AtomicInteger(packs);
+		}
+
+		@Override
+		public PackingResult pack(PackingProblem problem, int[] order) {
+			if (remaining.getAndDecrement() <= 0) {
+				throw new IllegalStateException("decode failed");
+			}
+			return solver.pack(problem, order);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.binpacker.lib.optimizer;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.FirstFit3D;
+
+class JobSchedulerTest {
+
+	@Test
+	void testJobsShareScheduler() throws Exception {
+		JobScheduler scheduler = new JobScheduler(2, 2);
+		try {
+			List<PackingJob> jobs = new ArrayList<>();
+			for (int j = 0; j < 3; j++) {
+				List<Box> boxes = new ArrayList<>();
+				for (int i = 0; i < 30; i++) {
+					boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + (i + j) % 3, 2, 1 + i % 2)));
+				}
+				PackingJob job = new PackingJob(new FirstFit3D(), boxes, new Bin(0, 6, 6, 6), false, "x", 8, 2, 4);
+				job.setPriority(j + 1);
+				jobs.add(scheduler.submit(job));
+			}
+
+			// every job runs all its generations and returns a full packing
+			for (PackingJob job : jobs) {
+				PackingResult result = job.result().get(30, TimeUnit.SECONDS);
+				assertEquals(30, result.size);
+				assertEquals(PackingJob.State.DONE, job.getState());
+				assertEquals(4, job.getGeneration());
+			}
+			assertEquals(0, scheduler.getQueueDepth());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	void testShutdownCancelsUnfinishedJobs() throws Exception {
+		JobScheduler scheduler = new JobScheduler(2, 2);
+		List<PackingJob> jobs = new ArrayList<>();
+		for (int j = 0; j < 4; j++) {
+			List<Box> boxes = new ArrayList<>();
+			for (int i = 0; i < 60; i++) {
+				boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + (i + j) % 3, 2, 1 + i % 2)));
+			}
+			jobs.add(scheduler.submit(
+					new PackingJob(new FirstFit3D(), boxes, new Bin(0, 6, 6, 6), false, "x", 8, 2, 1_000_000)));
+		}
+		while (jobs.get(jobs.size() - 1).getGeneration() == 0) {
+			Thread.sleep(5);
+		}
+		scheduler.shutdown();
+
+		// running and waiting jobs alike give up their pending evaluations
+		for (PackingJob job : jobs) {
+			assertEquals(PackingJob.State.CANCELLED, job.getState());
+			assertNull(job.optimizer);
+		}
+	}
+}
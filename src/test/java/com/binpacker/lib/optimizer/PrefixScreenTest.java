@@ -0,0 +1,108 @@
+package com.binpacker.lib.optimizer;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Workload;
+import com.binpacker.lib.solver.BestFit3D;
+import com.binpacker.lib.solver.FirstFit3D;
+import com.binpacker.lib.solver.IncrementalSolver;
+import com.binpacker.lib.solver.MOAB;
+import com.binpacker.lib.solver.Solver;
+
+class PrefixScreenTest {
+
+	@Test
+	void testFinishedSurvivorMatchesFullDecode() {
+		Bin bin = new Bin(0, 30, 30, 30);
+		List<Box> boxes = Workload.boxes(Workload.Shape.HETEROGENEOUS, 120, bin, 3);
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < boxes.size(); i++) {
+			order.add(i);
+		}
+		Collections.shuffle(order, new Random(5));
+		int[] indices = order.stream().mapToInt(Integer::intValue).toArray();
+
+		// incremental solvers resume the prefix, MOAB packs again from the start
+		for (Solver solver : List.of(new FirstFit3D(), new FirstFit3D(true), new BestFit3D(), new MOAB())) {
+			for (boolean growing : new boolean[] { false, true }) {
+				PackingProblem problem = PackingProblem.of(boxes, bin, growing, "y");
+				PrefixScreen screen = new PrefixScreen(solver, problem);
+				PrefixScreen.Candidate candidate = screen.screen(order, 30);
+				assertEquals(30, candidate.prefixLength);
+				assertEquals(solver instanceof IncrementalSolver, candidate.decoder != null);
+				assertTrue(candidate.estimate > 0);
+
+				PackingResult expected = solver.pack(problem, indices);
+				PackingResult finished = screen.finish(candidate);
+				assertEquals(expected.size, finished.size);
+				assertEquals(expected.binCount, finished.binCount);
+				for (int i = 0; i < expected.size; i++) {
+					assertEquals(expected.ids[i], finished.ids[i]);
+					assertEquals(expected.bins[i], finished.bins[i]);
+					assertEquals(expected.x[i], finished.x[i]);
+					assertEquals(expected.y[i], finished.y[i]);
+					assertEquals(expected.z[i], finished.z[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testScreenKeepsWinnerMoreOftenThanRandom() {
+		Bin bin = new Bin(0, 30, 30, 30);
+		GAOptimizer rating = new GAOptimizer();
+		int trials = 0;
+		int kept = 0;
+		for (Workload.Shape shape : List.of(Workload.Shape.UNIFORM, Workload.Shape.HETEROGENEOUS,
+				Workload.Shape.FEW_SKU)) {
+			for (int seed = 1; seed <= 10; seed++) {
+				List<Box> boxes = Workload.boxes(shape, 120, bin, seed);
+				PackingProblem problem = PackingProblem.of(boxes, bin, false, "y");
+				PrefixScreen screen = new PrefixScreen(new FirstFit3D(), problem);
+				Random random = new Random(seed);
+
+				// 40 children rated in full and by their first half
+				double[] scores = new double[40];
+				double[] estimates = new double[40];
+				int winner = 0;
+				for (int c = 0; c < scores.length; c++) {
+					List<Integer> order = new ArrayList<>();
+					for (int i = 0; i < boxes.size(); i++) {
+						order.add(i);
+					}
+					Collections.shuffle(order, random);
+					PrefixScreen.Candidate candidate = screen.screen(order, 60);
+					estimates[c] = candidate.estimate;
+					scores[c] = rating.rate(screen.finish(candidate), bin);
+					if (scores[c] > scores[winner]) {
+						winner = c;
+					}
+				}
+
+				// the screen keeps the quarter with the densest prefixes
+				int denser = 0;
+				for (double estimate : estimates) {
+					if (estimate > estimates[winner]) {
+						denser++;
+					}
+				}
+				trials++;
+				if (denser < estimates.length / 4) {
+					kept++;
+				}
+			}
+		}
+		// a random quarter keeps the winner in a quarter of the trials
+		assertTrue(kept >= trials / 2, "winner kept in " + kept + " of " + trials);
+	}
+}
@@ -0,0 +1,124 @@
+package com.binpacker.lib.optimizer;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.ExtremePoint3D;
+import com.binpacker.lib.solver.FirstFit3D;
+import com.binpacker.lib.solver.MOAB;
+import com.binpacker.lib.solver.MaxRects2D;
+import com.binpacker.lib.solver.StripSearch;
+
+class SolutionCacheTest {
+
+	@Test
+	void testReorderedManifestHitsCache() throws Exception {
+		Path directory = Files.createTempDirectory("solutions");
+		try {
+			List<Box> boxes = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 3, 2 + i % 2, 1 + i % 4)));
+			}
+
+			GAOptimizer first = new GAOptimizer();
+			first.setSolutionCache(new SolutionCache(8, directory));
+			first.initialize(new FirstFit3D(), boxes, new Bin(0, 6, 6, 6), false, "x", 10, 2);
+			assertTrue(Double.isNaN(first.getCachedScore()));
+			for (int i = 0; i < 3; i++) {
+				first.executeNextGeneration();
+			}
+
+			// same boxes in another order, read back from disk by a new cache
+			List<Box> reordered = new ArrayList<>(boxes);
+			Collections.reverse(reordered);
+			GAOptimizer second = new GAOptimizer();
+			second.setSolutionCache(new SolutionCache(8, directory));
+			second.initialize(new FirstFit3D(), reordered, new Bin(0, 6, 6, 6), false, "x", 10, 2);
+
+			assertEquals(first.getBestScore(), second.getCachedScore());
+			PackingResult cached = second.getCachedSolution();
+			assertEquals(boxes.size(), cached.size);
+			assertEquals(first.getBestScore(), second.rate(cached, new Bin(0, 6, 6, 6)), 1e-9);
+		} finally {
+			try (var files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	void testCachedOrderKeepsSeeds() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 3, 2 + i % 2, 1 + i % 4)));
+		}
+		Bin bin = new Bin(0, 6, 6, 6);
+		SolutionCache cache = new SolutionCache(8);
+		GAOptimizer first = new GAOptimizer();
+		first.setSolutionCache(cache);
+		first.initialize(new FirstFit3D(), boxes, bin, false, "x", 10, 2);
+		first.executeNextGeneration();
+
+		GAOptimizer plain = new GAOptimizer();
+		plain.setSolutionCache(cache);
+		plain.initialize(new FirstFit3D(), boxes, bin, false, "x", 10, 2);
+		List<Integer> cached = plain.boxOrders.get(9);
+
+		List<Integer> ascending = new ArrayList<>();
+		for (int i = 0; i < boxes.size(); i++) {
+			ascending.add(i);
+		}
+		List<Integer> descending = new ArrayList<>(ascending);
+		Collections.reverse(descending);
+
+		// the cached order goes into the first slot no seed holds
+		GAOptimizer seeded = new GAOptimizer();
+		seeded.setSolutionCache(cache);
+		seeded.addSeed(ascending);
+		seeded.addSeed(descending);
+		seeded.initialize(new FirstFit3D(), boxes, bin, false, "x", 10, 2);
+		assertEquals(ascending, seeded.boxOrders.get(9));
+		assertEquals(descending, seeded.boxOrders.get(8));
+		assertEquals(cached, seeded.boxOrders.get(7));
+
+		// and is not added twice when a seed already is that order
+		GAOptimizer same = new GAOptimizer();
+		same.setSolutionCache(cache);
+		same.addSeed(cached);
+		same.initialize(new FirstFit3D(), boxes, bin, false, "x", 10, 2);
+		assertEquals(cached, same.boxOrders.get(9));
+		assertNotEquals(cached, same.boxOrders.get(8));
+	}
+
+	@Test
+	void testSolverSettingsChangeKey() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 3, 2, 1)));
+		}
+		Bin bin = new Bin(0, 6, 6, 6);
+
+		String plain = SolutionCache.key(boxes, bin, new FirstFit3D(), true, "y");
+		assertEquals(plain, SolutionCache.key(boxes, bin, new FirstFit3D(false), true, "y"));
+		assertNotEquals(plain, SolutionCache.key(boxes, bin, new FirstFit3D(true), true, "y"));
+		assertNotEquals(SolutionCache.key(boxes, bin, new ExtremePoint3D(), true, "y"),
+				SolutionCache.key(boxes, bin, new StripSearch(new ExtremePoint3D()), true, "y"));
+		assertNotEquals(SolutionCache.key(boxes, bin, new StripSearch(new ExtremePoint3D()), true, "y"),
+				SolutionCache.key(boxes, bin, new StripSearch(new MOAB()), true, "y"));
+		assertNotEquals(SolutionCache.key(boxes, bin, new MaxRects2D(), true, "y"),
+				SolutionCache.key(boxes, bin, new MaxRects2D(MaxRects2D.Rule.BOTTOM_LEFT), true, "y"));
+	}
+}
@@ -0,0 +1,79 @@
+package com.binpacker.lib.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+class PackingServerTest {
+
+	@Test
+	void testPack() throws IOException {
+		PackingServer server = new PackingServer(0, 2, 2000, 16);
+		server.start();
+		try {
+			String manifest = "bin 10 10 10\n"
+					+ "solver firstfit3d\n"
+					+ "box 1 2 2 2\n"
+					+ "box 2 3 3 3\n";
+			String[] lines = post(server, manifest).split("\n");
+
+			// header and one line per box, both in the first bin
+			assertEquals(3, lines.length);
+			assertTrue(lines[1].startsWith("0,1,"));
+			assertTrue(lines[2].startsWith("0,2,"));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	void testOptimizerRunDoesNotHoldUpSmallRequests() throws Exception {
+		PackingServer server = new PackingServer(0, 1, 2000, 16);
+		server.start();
+		try {
+			StringBuilder optimized = new StringBuilder("bin 10 10 10\nsolver firstfit3d\nbudget 3000\nmode steady\n");
+			for (int i = 0; i < 40; i++) {
+				optimized.append("box ").append(i).append(" 2 3 4\n");
+			}
+			Thread run = new Thread(() -> {
+				try {
+					post(server, optimized.toString());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			run.start();
+			Thread.sleep(300);
+
+			// the steady state workers keep the optimizer pool busy for the budget
+			long start = System.nanoTime();
+			String small = post(server, "bin 10 10 10\nsolver firstfit3d\nbox 1 2 2 2\n");
+			long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(run.isAlive(), "optimizer run ended early");
+			assertTrue(small.startsWith("bin,id"));
+			assertTrue(millis < 1500, "small request took " + millis + " ms");
+			run.join();
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static String post(PackingServer server, String manifest) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://127.0.0.1:" + server.getPort() + "/pack").openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(manifest.getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(200, connection.getResponseCode());
+		return new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+	}
+}
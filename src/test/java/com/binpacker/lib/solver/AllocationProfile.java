@@ -0,0 +1,229 @@
+package com.binpacker.lib.solver;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.Workload;
+import com.binpacker.lib.optimizer.GAOptimizer;
+
+/**
+ * Measures how much memory solver decodes and optimizer generations churn
+ * through, so memory efficiency can be compared across versions. Run it with
+ * {@code ./gradlew profileAllocations}.
+ *
+ * Every solver packs the same generated workload into a fixed and a growing
+ * bin, a short optimizer run covers breeding and evaluation. Per row:
+ * allocated bytes per solve from the thread allocation counters, objects per
+ * placed box from the JVM class histogram, GC count and time, and the peak
+ * heap, written as CSV to stdout and the output file.
+ *
+ * Options: --boxes n, --shape name, --repeats n, --solvers a,b and --out file.
+ */
+public class AllocationProfile {
+
+	private static final String HEADER = "solver,mode,shape,boxes,solves,bytes_per_solve,bytes_per_box,"
+			+ "objects_per_box,gc_count,gc_millis,peak_heap_mb,millis_per_solve";
+	// Rough time spent measuring one row
+	private static final double ROW_MILLIS = 2000;
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private int boxCount = 2000;
+	private Workload.Shape shape = Workload.Shape.UNIFORM;
+	private int repeats = 20;
+	private List<String> solvers = List.of("FirstFit3D", "BestFit3D", "MOAB", "FirstFit2D");
+	private Path out = Path.of("build", "reports", "allocation", "allocation.csv");
+
+	// Work done by one measured solve, on whatever threads it uses
+	private interface Run {
+		void solve();
+	}
+
+	public static void main(String[] args) throws Exception {
+		AllocationProfile profile = new AllocationProfile();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+				case "--boxes":
+					profile.boxCount = Integer.parseInt(args[i + 1]);
+					break;
+				case "--shape":
+					profile.shape = Workload.Shape.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+					break;
+				case "--repeats":
+					profile.repeats = Integer.parseInt(args[i + 1]);
+					break;
+				case "--solvers":
+					profile.solvers = List.of(args[i + 1].split(","));
+					break;
+				case "--out":
+					profile.out = Path.of(args[i + 1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		profile.run();
+	}
+
+	private void run() throws Exception {
+		List<String> rows = new ArrayList<>();
+		rows.add(HEADER);
+		System.out.println(HEADER);
+
+		for (String name : solvers) {
+			Solver solver = (Solver) Class.forName("com.binpacker.lib.solver." + name).getDeclaredConstructor()
+					.newInstance();
+			boolean flat = name.endsWith("2D");
+			Bin bin = flat ? new Bin(0, 100, 100) : new Bin(0, 100, 100, 100);
+			List<Box> boxes = Workload.boxes(shape, boxCount, bin, 1);
+			int[] order = new int[boxCount];
+			for (int i = 0; i < boxCount; i++) {
+				order[i] = i;
+			}
+
+			for (boolean growing : new boolean[] { false, true }) {
+				PackingProblem problem = PackingProblem.of(boxes, bin, growing, "y");
+				String row = measure(name, growing ? "growing" : "fixed", repeats, false,
+						() -> solver.pack(problem, order));
+				rows.add(row);
+				System.out.println(row);
+			}
+		}
+
+		// Evaluations run on a fixed pool, threads that die take their counters along
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			Bin bin = new Bin(0, 100, 100, 100);
+			GAOptimizer optimizer = new GAOptimizer();
+			optimizer.setSeed(1);
+			optimizer.setExecutor(pool);
+			optimizer.initialize(new FirstFit3D(), Workload.boxes(shape, boxCount, bin, 1), bin, false, "y", 16, 2);
+			// one generation is a solve, every one evaluates the whole population
+			String row = measure("GAOptimizer", "fixed", Math.max(1, repeats / 4), true,
+					optimizer::executeNextGeneration);
+			rows.add(row);
+			System.out.println(row);
+		} finally {
+			pool.shutdown();
+		}
+
+		if (out.getParent() != null) {
+			Files.createDirectories(out.getParent());
+		}
+		Files.write(out, rows);
+	}
+
+	private String measure(String name, String mode, int repeats, boolean allThreads, Run run) throws Exception {
+		// slow solvers get fewer repeats, so every row takes a few seconds
+		long first = System.nanoTime();
+		run.solve();
+		double firstMillis = (System.nanoTime() - first) / 1e6;
+		int solves = (int) Math.max(1, Math.min(repeats, ROW_MILLIS / Math.max(1, firstMillis)));
+
+		// warm up so the JIT has settled and the solver arenas are filled
+		for (int i = 1; i < solves; i++) {
+			run.solve();
+		}
+
+		double objects = countObjects(run);
+
+		System.gc();
+		long gcCount = gcCount();
+		long gcMillis = gcMillis();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			pool.resetPeakUsage();
+		}
+		long bytes = allocatedBytes(allThreads);
+		long start = System.nanoTime();
+		for (int i = 0; i < solves; i++) {
+			run.solve();
+		}
+		double millis = (System.nanoTime() - start) / 1e6 / solves;
+		double bytesPerSolve = (allocatedBytes(allThreads) - bytes) / (double) solves;
+
+		// pools peak at different moments, so the sum is an upper bound
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+
+		return String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%.0f,%.1f,%.2f,%d,%d,%.1f,%.2f", name, mode, shape, boxCount,
+				solves, bytesPerSolve, bytesPerSolve / boxCount, objects, gcCount() - gcCount, gcMillis() - gcMillis,
+				peak / 1048576.0, millis);
+	}
+
+	/**
+	 * Objects created by one solve per placed box, from the instance totals of
+	 * the class histogram including unreachable objects. The cost of taking a
+	 * histogram is measured first and subtracted. NaN when a collection ran
+	 * in between, since it removes objects from the count.
+	 */
+	private double countObjects(Run run) throws Exception {
+		System.gc();
+		long gcs = gcCount();
+		long first = histogramTotal();
+		long second = histogramTotal();
+		run.solve();
+		long third = histogramTotal();
+		if (gcCount() != gcs) {
+			return Double.NaN;
+		}
+		long created = (third - second) - (second - first);
+		return Math.max(0, created) / (double) boxCount;
+	}
+
+	private static long histogramTotal() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		String histogram = (String) server.invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"),
+				"gcClassHistogram", new Object[] { new String[] { "-all" } }, new String[] { String[].class.getName() });
+		// last line: Total <instances> <bytes>
+		String[] lines = histogram.trim().split("\n");
+		String[] total = lines[lines.length - 1].trim().split("\\s+");
+		return Long.parseLong(total[1]);
+	}
+
+	private static long allocatedBytes(boolean allThreads) {
+		if (!allThreads) {
+			return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		long sum = 0;
+		for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+			sum += Math.max(0, bytes);
+		}
+		return sum;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+}
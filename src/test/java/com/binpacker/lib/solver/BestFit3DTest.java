@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Box;
@@ -32,4 +34,34 @@ class BestFit3DTest {
 		assertEquals(boxes.get(1).id, result.get(0).get(1).id);
 
 	}
+
+	@Test
+	void testParallelSearchMatchesSequential() {
+		Random random = new Random(42);
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0),
+					new Point3f(random.nextInt(8) + 2, random.nextInt(8) + 2, random.nextInt(8) + 2)));
+		}
+
+		List<List<Box>> sequential = new BestFit3D(Integer.MAX_VALUE).solve(boxes, new Bin(0, 20, 20, 20), false, "x");
+		// a threshold of 0 forces every box through the fork-join search and
+		// slices of two spaces split it down to ranges within and across bins
+		ForkJoinPool pool = new ForkJoinPool(4);
+		List<List<Box>> parallel;
+		try {
+			parallel = new BestFit3D(0, pool, 2).solve(boxes, new Bin(0, 20, 20, 20), false, "x");
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(sequential.size(), parallel.size());
+		for (int b = 0; b < sequential.size(); b++) {
+			assertEquals(sequential.get(b).size(), parallel.get(b).size());
+			for (int i = 0; i < sequential.get(b).size(); i++) {
+				assertEquals(sequential.get(b).get(i).toString(), parallel.get(b).get(i).toString());
+				assertEquals(sequential.get(b).get(i).id, parallel.get(b).get(i).id);
+			}
+		}
+	}
 }
@@ -0,0 +1,78 @@
+package com.binpacker.lib.solver;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingChecks;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.Workload;
+
+class ExtremePoint3DTest {
+
+	@Test
+	void testSolve() {
+		ExtremePoint3D solver = new ExtremePoint3D();
+		List<Box> boxes = new ArrayList<>();
+		boxes.add(new Box(1, new Point3f(0, 0, 0), new Point3f(2, 2, 2)));
+		boxes.add(new Box(2, new Point3f(0, 0, 0), new Point3f(3, 3, 3)));
+		Bin binTemplate = new Bin(0, 10, 10, 10);
+
+		List<List<Box>> result = solver.solve(boxes, binTemplate, false, "x");
+
+		// check that both boxes ended in the bin in the same order as in the
+		// original queue
+		assertEquals(1, result.size());
+		assertEquals(2, result.get(0).size());
+
+		assertEquals(boxes.get(0).id, result.get(0).get(0).id);
+		assertEquals(boxes.get(1).id, result.get(0).get(1).id);
+
+		// the second box sits at an extreme point of the first
+		Box second = result.get(0).get(1);
+		assertEquals(2.0f, second.position.x + second.position.y + second.position.z);
+	}
+
+	@Test
+	void testNoOverlap() {
+		Random random = new Random(7);
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0),
+					new Point3f(random.nextInt(8) + 2, random.nextInt(8) + 2, random.nextInt(8) + 2)));
+		}
+
+		PackingResult result = new ExtremePoint3D().pack(boxes, new Bin(0, 20, 20, 20), false, "x");
+
+		assertEquals(boxes.size(), result.size);
+		for (int i = 0; i < result.size; i++) {
+			assertTrue(result.x[i] + result.w[i] <= 20 && result.y[i] + result.h[i] <= 20
+					&& result.z[i] + result.d[i] <= 20);
+			for (int j = i + 1; j < result.size; j++) {
+				boolean overlap = result.bins[i] == result.bins[j] &&
+						result.x[i] < result.x[j] + result.w[j] && result.x[j] < result.x[i] + result.w[i] &&
+						result.y[i] < result.y[j] + result.h[j] && result.y[j] < result.y[i] + result.h[i] &&
+						result.z[i] < result.z[j] + result.d[j] && result.z[j] < result.z[i] + result.d[i];
+				assertFalse(overlap);
+			}
+		}
+	}
+
+	@Test
+	void testRodsAndPlatesSpanManyCells() {
+		// rods run across grid cells sized by the mean edge
+		Bin bin = new Bin(0, 100, 100, 100);
+		List<Box> boxes = Workload.boxes(Workload.Shape.FLAT_LONG, 1500, bin, 11);
+
+		for (boolean growing : new boolean[] { false, true }) {
+			PackingResult result = new ExtremePoint3D().pack(boxes, new Bin(0, 100, 100, 100), growing, "y");
+			PackingChecks.assertValid(result, boxes, new Bin(0, 100, 100, 100), growing, "y");
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.util.List;
 
 import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.common.Point3f;
 import com.binpacker.lib.common.Space;
 import com.binpacker.lib.solver.FirstFit2D;
@@ -31,4 +32,21 @@ class FirstFit2DTest {
 		assertEquals(result.get(0).get(0).id, boxes.get(0).id);
 		assertEquals(result.get(0).get(1).id, boxes.get(1).id);
 	}
+
+	@Test
+	void testCoalesceFitsBoxIntoMergedSpace() {
+		List<Box> boxes = new ArrayList<>();
+		// the second box leaves a 5x4 space right above the one beside the
+		// first, the depth is too large to lay the boxes on their side
+		boxes.add(new Box(1, new Point3f(0, 0, 0), new Point3f(5, 4, 20)));
+		boxes.add(new Box(2, new Point3f(0, 0, 0), new Point3f(5, 4, 20)));
+		boxes.add(new Box(3, new Point3f(0, 0, 0), new Point3f(5, 8, 20)));
+		Bin bin = new Bin(0, 10, 10);
+
+		assertEquals(2, new FirstFit2D().pack(boxes, bin, false, "y").binCount);
+		PackingResult result = new FirstFit2D(true).pack(boxes, bin, false, "y");
+		assertEquals(1, result.binCount);
+		assertEquals(5, result.x[2]);
+		assertEquals(0, result.y[2]);
+	}
 }
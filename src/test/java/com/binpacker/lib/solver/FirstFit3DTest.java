@@ -8,7 +8,11 @@ import java.util.List;
 
 import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingChecks;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
 import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.Workload;
 import com.binpacker.lib.solver.FirstFit3D;
 
 class FirstFit3DTest {
@@ -31,4 +35,87 @@ class FirstFit3DTest {
 		assertEquals(result.get(0).get(0).id, boxes.get(0).id);
 		assertEquals(result.get(0).get(1).id, boxes.get(1).id);
 	}
+
+	@Test
+	void testDecoderTruncate() {
+		testDecoderTruncate(new FirstFit3D());
+		testDecoderTruncate(new FirstFit3D(true));
+	}
+
+	private void testDecoderTruncate(FirstFit3D solver) {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 4, 2 + i % 3, 1 + i % 5)));
+		}
+		List<Box> changed = new ArrayList<>(boxes);
+		changed.set(20, boxes.get(35));
+		changed.set(35, boxes.get(20));
+
+		PackingProblem problem = PackingProblem.of(boxes, new Bin(0, 8, 8, 8), false, "x");
+		Decoder decoder = solver.decoder(problem, boxes.size());
+		for (int i = 0; i < boxes.size(); i++) {
+			decoder.add(i);
+		}
+		decoder.truncate(20);
+		for (int i = 20; i < changed.size(); i++) {
+			decoder.add(i == 20 ? 35 : i == 35 ? 20 : i);
+		}
+
+		// resuming from the prefix gives the same packing as a fresh run
+		PackingResult expected = solver.pack(changed, new Bin(0, 8, 8, 8), false, "x");
+		PackingResult actual = decoder.result();
+		assertEquals(expected.binCount, actual.binCount);
+		assertEquals(expected.size, actual.size);
+		for (int i = 0; i < expected.size; i++) {
+			assertEquals(expected.ids[i], actual.ids[i]);
+			assertEquals(expected.bins[i], actual.bins[i]);
+			assertEquals(expected.x[i], actual.x[i]);
+			assertEquals(expected.y[i], actual.y[i]);
+			assertEquals(expected.z[i], actual.z[i]);
+		}
+	}
+
+	@Test
+	void testTruncateBinsOfBoxesTooBig() {
+		// every box opens a bin it does not fit, so no bin gets free spaces
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(20, 10, 10)));
+		}
+		PackingProblem problem = PackingProblem.of(boxes, new Bin(0, 10, 10, 10), false, "x");
+		for (FirstFit3D solver : List.of(new FirstFit3D(), new FirstFit3D(true))) {
+			Decoder decoder = solver.decoder(problem, boxes.size());
+			for (int i = 0; i < boxes.size(); i++) {
+				decoder.add(i);
+			}
+			decoder.truncate(0);
+			assertEquals(0, decoder.size());
+			assertEquals(0, decoder.result().size);
+		}
+	}
+
+	@Test
+	void testCoalesceFitsBoxIntoMergedSpace() {
+		List<Box> boxes = new ArrayList<>();
+		// two slabs side by side leave two 5x6x10 spaces on top of them
+		boxes.add(new Box(1, new Point3f(0, 0, 0), new Point3f(5, 4, 10)));
+		boxes.add(new Box(2, new Point3f(0, 0, 0), new Point3f(5, 4, 10)));
+		boxes.add(new Box(3, new Point3f(0, 0, 0), new Point3f(10, 6, 10)));
+		Bin bin = new Bin(0, 10, 10, 10);
+
+		assertEquals(2, new FirstFit3D().pack(boxes, bin, false, "x").binCount);
+		PackingResult result = new FirstFit3D(true).pack(boxes, bin, false, "x");
+		assertEquals(1, result.binCount);
+		assertEquals(3, result.size);
+		assertEquals(4, result.y[2]);
+	}
+
+	@Test
+	void testCoalescedPackingIsValid() {
+		Bin bin = new Bin(0, 40, 40, 40);
+		List<Box> boxes = Workload.boxes(Workload.Shape.HETEROGENEOUS, 400, bin, 11);
+		FirstFit3D solver = new FirstFit3D(true);
+		PackingChecks.assertValid(solver.pack(boxes, bin, false, "y"), boxes, bin, false, "y");
+		PackingChecks.assertNoOverlap(solver.pack(boxes, bin, true, "y"));
+	}
 }
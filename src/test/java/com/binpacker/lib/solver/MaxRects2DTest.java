@@ -0,0 +1,77 @@
+package com.binpacker.lib.solver;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingChecks;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.Workload;
+
+class MaxRects2DTest {
+
+	@Test
+	void testSolve() {
+		MaxRects2D solver = new MaxRects2D();
+		List<Box> boxes = new ArrayList<>();
+		boxes.add(new Box(1, new Point3f(0, 0, 0), new Point3f(2, 2, 2)));
+		boxes.add(new Box(2, new Point3f(0, 0, 0), new Point3f(3, 3, 3)));
+		Bin binTemplate = new Bin(0, 10, 10, 10);
+
+		List<List<Box>> result = solver.solve(boxes, binTemplate, false, "x");
+
+		// both boxes were placed in the bin
+		assertEquals(2, result.get(0).size());
+		// boxes are in the bin in the same order as they were in the original
+		// list
+		assertEquals(result.get(0).get(0).id, boxes.get(0).id);
+		assertEquals(result.get(0).get(1).id, boxes.get(1).id);
+	}
+
+	@Test
+	void testNoOverlap() {
+		Random random = new Random(11);
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0),
+					new Point3f(random.nextInt(8) + 2, random.nextInt(8) + 2, 1)));
+		}
+
+		for (MaxRects2D.Rule rule : MaxRects2D.Rule.values()) {
+			PackingResult result = new MaxRects2D(rule).pack(boxes, new Bin(0, 30, 30), false, "x");
+
+			assertEquals(boxes.size(), result.size);
+			for (int i = 0; i < result.size; i++) {
+				assertTrue(result.x[i] + result.w[i] <= 30 && result.y[i] + result.h[i] <= 30);
+				for (int j = i + 1; j < result.size; j++) {
+					boolean overlap = result.bins[i] == result.bins[j] &&
+							result.x[i] < result.x[j] + result.w[j] && result.x[j] < result.x[i] + result.w[i] &&
+							result.y[i] < result.y[j] + result.h[j] && result.y[j] < result.y[i] + result.h[i];
+					assertFalse(overlap, rule + " placed overlapping boxes");
+				}
+			}
+		}
+	}
+
+	@Test
+	void testGrowingStripIsValid() {
+		// long strips spread free rectangles over many bands of the index, and
+		// rods leave rectangles longer than a band
+		Bin bin = new Bin(0, 100, 60);
+		for (Workload.Shape shape : List.of(Workload.Shape.HETEROGENEOUS, Workload.Shape.FLAT_LONG)) {
+			List<Box> boxes = Workload.boxes(shape, 2000, bin, 9);
+			for (MaxRects2D.Rule rule : MaxRects2D.Rule.values()) {
+				for (String axis : List.of("x", "y")) {
+					PackingResult result = new MaxRects2D(rule).pack(boxes, bin, true, axis);
+					PackingChecks.assertValid(result, boxes, bin, true, axis);
+				}
+			}
+		}
+	}
+}
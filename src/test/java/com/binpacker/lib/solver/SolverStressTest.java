@@ -0,0 +1,136 @@
+package com.binpacker.lib.solver;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingChecks;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Workload;
+
+/**
+ * Packs generated workloads of 10k, 100k and 1M boxes with every solver and
+ * checks time, retained heap and the validity of each packing. Excluded from
+ * the regular test run, run it with {@code ./gradlew stressTest}; the sizes
+ * can be narrowed with {@code -Pstress.sizes=10000,100000}.
+ *
+ * Every solver except the extreme point and MaxRects ones compares each box
+ * against all open bins, so their time grows with the square of the box count
+ * once bins stop filling up. Single core measurements that set the limits
+ * below:
+ *
+ * <pre>
+ *                  10k         100k        1M
+ * FirstFit3D       0.6-0.9 s   2-68 s      15 s uniform, others over 580 s
+ * BestFit3D        0.6-1.4 s   52-80 s
+ * MOAB             2.8-7.5 s   over 300 s
+ * FirstFit2D       0.1-1.2 s   16-43 s
+ * ExtremePoint3D   0.4-19 s    1.5-24 s    48 s uniform
+ * MaxRects2D       0.1 s       0.5-1.0 s   2.6-20 s
+ * </pre>
+ *
+ * ExtremePoint3D needs 258 s for 100k heterogeneous boxes, too close to the
+ * budget, and tries the points of every open bin for flat/long ones like the
+ * first fit solvers do, so both shapes run at 10k.
+ *
+ * Runs above a solver's limit are skipped and reported, so the suite tracks
+ * where each solver falls over and fails when a solver gets slower within
+ * its limit.
+ */
+@Tag("stress")
+class SolverStressTest {
+
+	private static final Bin BIN = new Bin(0, 100, 100, 100);
+	private static final Bin FLAT_BIN = new Bin(0, 100, 100);
+	private static final long SEED = 20240601L;
+
+	// Retained heap allowed on top of a fixed allowance, per packed box
+	private static final long HEAP_PER_BOX = 128;
+	private static final long HEAP_ALLOWANCE = 64L << 20;
+
+	// Limits are the largest box counts run per shape, in the order uniform,
+	// heterogeneous, few sku, flat/long
+
+	@Test
+	void testFirstFit3D() {
+		run(new FirstFit3D(), BIN, 1_000_000, 100_000, 100_000, 100_000);
+	}
+
+	@Test
+	void testBestFit3D() {
+		run(new BestFit3D(), BIN, 100_000, 100_000, 100_000, 100_000);
+	}
+
+	@Test
+	void testMOAB() {
+		run(new MOAB(), BIN, 10_000, 10_000, 10_000, 10_000);
+	}
+
+	@Test
+	void testFirstFit2D() {
+		run(new FirstFit2D(), FLAT_BIN, 100_000, 100_000, 100_000, 100_000);
+	}
+
+	@Test
+	void testExtremePoint3D() {
+		run(new ExtremePoint3D(), BIN, 1_000_000, 10_000, 100_000, 10_000);
+	}
+
+	@Test
+	void testMaxRects2D() {
+		run(new MaxRects2D(), FLAT_BIN, 1_000_000, 1_000_000, 1_000_000, 1_000_000);
+	}
+
+	private static void run(Solver solver, Bin bin, int... limits) {
+		String name = solver.getClass().getSimpleName();
+		for (int size : sizes()) {
+			for (Workload.Shape shape : Workload.Shape.values()) {
+				if (size > limits[shape.ordinal()]) {
+					System.out.printf("%s %s %d: skipped, above the known limit%n", name, shape, size);
+					continue;
+				}
+
+				List<Box> boxes = Workload.boxes(shape, size, bin, SEED);
+				long heapBefore = usedHeap();
+				long start = System.nanoTime();
+				PackingResult result = solver.pack(boxes, bin, false, "y");
+				double seconds = (System.nanoTime() - start) / 1e9;
+				long retained = usedHeap() - heapBefore;
+
+				System.out.printf("%s %s %d: %.2f s, %d bins, %d MB retained%n", name, shape, size, seconds,
+						result.binCount, retained >> 20);
+				assertTrue(seconds <= budgetSeconds(size),
+						name + " took " + seconds + " s for " + size + " " + shape + " boxes");
+				assertTrue(retained <= HEAP_ALLOWANCE + HEAP_PER_BOX * size,
+						name + " retained " + retained + " bytes for " + size + " " + shape + " boxes");
+				PackingChecks.assertValid(result, boxes, bin, false, "y");
+			}
+		}
+	}
+
+	static List<Integer> sizes() {
+		List<Integer> sizes = new ArrayList<>();
+		for (String size : System.getProperty("stress.sizes", "10000,100000,1000000").split(",")) {
+			sizes.add(Integer.parseInt(size.trim()));
+		}
+		return sizes;
+	}
+
+	static double budgetSeconds(int size) {
+		if (size <= 10_000) {
+			return 60;
+		}
+		return size <= 100_000 ? 300 : 1800;
+	}
+
+	static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,77 @@
+package com.binpacker.lib.solver;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Workload;
+
+class SolverWorkspaceTest {
+
+	@Test
+	void testReusedWorkspacePacksLikeFreshSolve() {
+		Bin bin = new Bin(0, 40, 40, 40);
+		Bin small = new Bin(0, 20, 30, 25);
+		List<Box> boxes = Workload.boxes(Workload.Shape.HETEROGENEOUS, 300, bin, 5);
+		List<Box> others = Workload.boxes(Workload.Shape.FEW_SKU, 200, small, 6);
+		int[] order = identity(boxes.size());
+		int[] otherOrder = identity(others.size());
+
+		for (Solver solver : List.of(new FirstFit3D(), new BestFit3D(), new MOAB(), new FirstFit2D())) {
+			SolverWorkspace workspace = new SolverWorkspace();
+			for (boolean growing : new boolean[] { false, true }) {
+				PackingProblem problem = PackingProblem.of(boxes, bin, growing, "y");
+				PackingProblem other = PackingProblem.of(others, small, growing, "x");
+
+				// a larger solve leaves bins and spaces behind for the next one
+				PackingResult expected = solver.pack(problem, order);
+				solver.pack(other, otherOrder, workspace);
+				PackingResult reused = solver.pack(problem, order, workspace);
+				assertSamePacking(expected, reused);
+
+				PackingResult otherExpected = solver.pack(other, otherOrder);
+				assertSame(reused, solver.pack(other, otherOrder, workspace));
+				assertSamePacking(otherExpected, reused);
+			}
+		}
+	}
+
+	@Test
+	void testNestedAcquireGetsPrivateWorkspace() {
+		SolverWorkspace outer = SolverWorkspace.acquire();
+		SolverWorkspace inner = SolverWorkspace.acquire();
+		assertNotSame(outer, inner);
+		// each workspace owns the arena its spaces come from
+		assertNotSame(outer.arena, inner.arena);
+		inner.release();
+		outer.release();
+		assertSame(outer, SolverWorkspace.acquire());
+		outer.release();
+	}
+
+	private static int[] identity(int size) {
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		return order;
+	}
+
+	private static void assertSamePacking(PackingResult expected, PackingResult actual) {
+		assertEquals(expected.size, actual.size);
+		assertEquals(expected.binCount, actual.binCount);
+		for (int i = 0; i < expected.size; i++) {
+			assertEquals(expected.ids[i], actual.ids[i]);
+			assertEquals(expected.bins[i], actual.bins[i]);
+			assertEquals(expected.x[i], actual.x[i]);
+			assertEquals(expected.y[i], actual.y[i]);
+			assertEquals(expected.z[i], actual.z[i]);
+			assertEquals(expected.w[i], actual.w[i]);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.binpacker.lib.solver;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.PackingChecks;
+import com.binpacker.lib.common.PackingProblem;
+import com.binpacker.lib.common.PackingResult;
+import com.binpacker.lib.common.Workload;
+
+class StripSearchTest {
+
+	@Test
+	void testStripIsNoLongerThanUnboundedPacking() {
+		Bin bin = new Bin(0, 100, 100, 100);
+		// the unbounded packing is a candidate, so this holds for every shape
+		for (Workload.Shape shape : Workload.Shape.values()) {
+			List<Box> boxes = Workload.boxes(shape, 300, bin, 3);
+			for (Solver solver : List.of(new ExtremePoint3D(), new MOAB())) {
+				PackingResult unbounded = solver.pack(boxes, bin, true, "y");
+				PackingResult strip = new StripSearch(solver).pack(boxes, bin, true, "y");
+
+				PackingChecks.assertValid(strip, boxes, bin, true, "y");
+				assertTrue(strip.maxExtent("y") <= unbounded.maxExtent("y"),
+						solver.getClass().getSimpleName() + " " + shape + " strip " + strip.maxExtent("y")
+								+ " longer than " + unbounded.maxExtent("y"));
+			}
+		}
+	}
+
+	@Test
+	void testOnlySupportedSolvers() {
+		for (Solver solver : List.of(new FirstFit3D(), new BestFit3D(), new FirstFit2D(), new MaxRects2D())) {
+			assertFalse(StripSearch.supports(solver));
+			assertThrows(IllegalArgumentException.class, () -> new StripSearch(solver));
+		}
+	}
+
+	@Test
+	void testIncompleteUnboundedPackingIsNeverChosen() {
+		Bin bin = new Bin(0, 100, 100, 100);
+		List<Box> boxes = Workload.boxes(Workload.Shape.UNIFORM, 100, bin, 6);
+		// leaves most boxes out of growing bins, which makes them shorter
+		Solver dropsBox = new ExtremePoint3D() {
+			@Override
+			public PackingResult pack(PackingProblem problem, int[] order) {
+				if (problem.isGrowing()) {
+					order = Arrays.copyOf(order, order.length / 10);
+				}
+				return super.pack(problem, order);
+			}
+		};
+		PackingResult strip = new StripSearch(dropsBox).pack(boxes, bin, true, "y");
+		PackingChecks.assertValid(strip, boxes, bin, true, "y");
+		assertEquals(boxes.size(), strip.size);
+		assertEquals(1, strip.binCount);
+	}
+
+	@Test
+	void testFixedBinIsPackedUnchanged() {
+		Bin bin = new Bin(0, 40, 40, 40);
+		List<Box> boxes = Workload.boxes(Workload.Shape.UNIFORM, 200, bin, 5);
+		PackingResult expected = new ExtremePoint3D().pack(boxes, bin, false, "y");
+		PackingResult actual = new StripSearch(new ExtremePoint3D()).pack(boxes, bin, false, "y");
+		assertEquals(expected.size, actual.size);
+		assertEquals(expected.binCount, actual.binCount);
+		for (int i = 0; i < expected.size; i++) {
+			assertEquals(expected.bins[i], actual.bins[i]);
+			assertEquals(expected.x[i], actual.x[i]);
+			assertEquals(expected.y[i], actual.y[i]);
+			assertEquals(expected.z[i], actual.z[i]);
+		}
+	}
+}